@@ -6,10 +6,16 @@ import dev.archdemone.npcintegration.integrations.ModelEngineIntegration;
 import dev.archdemone.npcintegration.commands.NPCCommand;
 import dev.archdemone.npcintegration.commands.EnhancedNPCCommand;
 import dev.archdemone.npcintegration.listeners.PlayerListener;
+import dev.archdemone.npcintegration.listeners.ResourceIndexListener;
+import dev.archdemone.npcintegration.listeners.TaskChunkListener;
 import dev.archdemone.npcintegration.managers.NPCManager;
 import dev.archdemone.npcintegration.chat.NPCChatSystem;
 import dev.archdemone.npcintegration.chat.NPCTaskManager;
 import dev.archdemone.npcintegration.chat.EnhancedChatSystem;
+import dev.archdemone.npcintegration.scanning.AsyncResourceScanner;
+import dev.archdemone.npcintegration.scanning.ChunkGuard;
+import dev.archdemone.npcintegration.scanning.CropTracker;
+import dev.archdemone.npcintegration.scanning.ResourceIndex;
 import dev.archdemone.npcintegration.tasks.EnhancedTaskManager;
 import dev.archdemone.npcintegration.utils.MessageUtil;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -29,6 +35,10 @@ public class NPCIntegrationPlugin extends JavaPlugin {
     private NPCTaskManager taskManager;
     private EnhancedChatSystem enhancedChatSystem;
     private EnhancedTaskManager enhancedTaskManager;
+    private ChunkGuard chunkGuard;
+    private AsyncResourceScanner resourceScanner;
+    private ResourceIndex resourceIndex;
+    private CropTracker cropTracker;
     
     @Override
     public void onEnable() {
@@ -45,6 +55,10 @@ public class NPCIntegrationPlugin extends JavaPlugin {
         
         // Initialize managers
         npcManager = new NPCManager(this);
+        chunkGuard = new ChunkGuard(this);
+        resourceScanner = new AsyncResourceScanner(this);
+        resourceIndex = new ResourceIndex(this, resourceScanner);
+        cropTracker = new CropTracker(this, resourceScanner);
         
         // Initialize chat system
         chatSystem = new NPCChatSystem(this);
@@ -54,7 +68,8 @@ public class NPCIntegrationPlugin extends JavaPlugin {
         enhancedTaskManager = new EnhancedTaskManager(this);
         enhancedChatSystem = new EnhancedChatSystem(this, enhancedTaskManager);
         
-        // Start auto-save for task persistence
+        // Start the shared task tick driver and auto-save for task persistence
+        enhancedTaskManager.startTaskEngine();
         enhancedTaskManager.startAutoSave();
         
         // Register commands
@@ -77,6 +92,11 @@ public class NPCIntegrationPlugin extends JavaPlugin {
         
         if (enhancedTaskManager != null) {
             enhancedTaskManager.saveAllData();
+            enhancedTaskManager.stopTaskEngine();
+        }
+        
+        if (resourceScanner != null) {
+            resourceScanner.shutdown();
         }
         
         getLogger().info("NPC Integration Plugin has been disabled!");
@@ -118,6 +138,8 @@ public class NPCIntegrationPlugin extends JavaPlugin {
     private void registerListeners() {
         try {
             getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
+            getServer().getPluginManager().registerEvents(new TaskChunkListener(this), this);
+            getServer().getPluginManager().registerEvents(new ResourceIndexListener(this), this);
             getLogger().info("Event listeners registered successfully!");
         } catch (NoClassDefFoundError e) {
             getLogger().warning("Could not register event listeners due to missing dependencies: " + e.getMessage());
@@ -161,6 +183,22 @@ public class NPCIntegrationPlugin extends JavaPlugin {
         return enhancedChatSystem;
     }
     
+    public ChunkGuard getChunkGuard() {
+        return chunkGuard;
+    }
+    
+    public AsyncResourceScanner getResourceScanner() {
+        return resourceScanner;
+    }
+    
+    public ResourceIndex getResourceIndex() {
+        return resourceIndex;
+    }
+    
+    public CropTracker getCropTracker() {
+        return cropTracker;
+    }
+    
     public EnhancedTaskManager getEnhancedTaskManager() {
         return enhancedTaskManager;
     }
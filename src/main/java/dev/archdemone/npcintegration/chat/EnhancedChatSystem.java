@@ -27,6 +27,8 @@ public class EnhancedChatSystem {
     // Patterns for NPC mentions
     private final Pattern npcNamePattern = Pattern.compile("@(\\w+)", Pattern.CASE_INSENSITIVE);
     private final Pattern npcIdPattern = Pattern.compile("#(\\d+)", Pattern.CASE_INSENSITIVE);
+    private final Pattern deadlinePattern = Pattern.compile("(?:within|in the next)\\s+(\\d{1,6})\\s+(second|minute|hour)s?",
+        Pattern.CASE_INSENSITIVE);
     
     // Keyword maps for different task types
     private final Map<String, Set<String>> taskKeywords;
@@ -341,16 +343,16 @@ public class EnhancedChatSystem {
         
         // Check if NPC is already doing a task
         if (taskManager.getCurrentTask(details.getCitizensId()) != null) {
-            // Check if we should interrupt or queue
-            if (config.canInterrupt()) {
-                taskManager.switchTask(details, taskType, player, config);
+            // Check if we should interrupt or queue, low priority work always waits its turn
+            if (config.canInterrupt() && config.getPriority() >= TaskConfiguration.PRIORITY_NORMAL) {
+                taskManager.submitSwitchTask(details, taskType, player, config);
                 return "I'll switch to " + taskType + " right away!";
             } else {
-                taskManager.assignTask(details, taskType, player, config);
+                taskManager.submitAssignTask(details, taskType, player, config);
                 return "I'll add " + taskType + " to my task list!";
             }
         } else {
-            taskManager.assignTask(details, taskType, player, config);
+            taskManager.submitAssignTask(details, taskType, player, config);
             return "I'll start " + taskType + " right now!";
         }
     }
@@ -363,9 +365,9 @@ public class EnhancedChatSystem {
         Material toolToGive = detectToolFromMessage(message);
         
         if (toolToGive != null) {
-            if (taskManager.giveToolToNPC(details, player, toolToGive)) {
-                return "Thank you for the " + toolToGive.name().toLowerCase().replace("_", " ") + "!";
-            }
+            // The hand-over touches inventories, so it happens on the main thread
+            taskManager.submitGiveTool(details, player, toolToGive);
+            return "Oh, a " + toolToGive.name().toLowerCase().replace("_", " ") + " for me?";
         }
         
         return "I'm not sure what tool you want to give me. Can you be more specific?";
@@ -395,7 +397,7 @@ public class EnhancedChatSystem {
      * Handles task stopping
      */
     private String handleTaskStopping(NPCManager.NPCDetails details, Player player) {
-        taskManager.clearAllTasks(details);
+        taskManager.submitClearAllTasks(details);
         return "I've stopped all my tasks. What would you like me to do now?";
     }
     
@@ -429,6 +431,16 @@ public class EnhancedChatSystem {
      * Parses additional task parameters from message
      */
     private void parseTaskParameters(TaskConfiguration config, String message) {
+        // Parse deadline (e.g., "within 10 minutes", "in the next 2 hours"), earlier deadlines go first among equal priority
+        var deadline = deadlinePattern.matcher(message);
+        if (deadline.find()) {
+            long amount = Long.parseLong(deadline.group(1));
+            String unit = deadline.group(2).toLowerCase();
+            long unitMillis = unit.equals("hour") ? 3_600_000L : unit.equals("minute") ? 60_000L : 1_000L;
+            config.setDeadline(System.currentTimeMillis() + amount * unitMillis);
+            message = message.substring(0, deadline.start()) + message.substring(deadline.end());
+        }
+        
         // Parse duration (e.g., "for 10 minutes", "for an hour")
         if (message.contains("minute") || message.contains("hour") || message.contains("second")) {
             // Simple duration parsing - could be enhanced
@@ -439,6 +451,13 @@ public class EnhancedChatSystem {
             }
         }
         
+        // Parse urgency (e.g., "urgent", "asap", "when you can")
+        if (message.contains("urgent") || message.contains("asap") || message.contains("immediately")) {
+            config.setPriority(TaskConfiguration.PRIORITY_HIGH);
+        } else if (message.contains("when you can") || message.contains("whenever") || message.contains("later")) {
+            config.setPriority(TaskConfiguration.PRIORITY_LOW);
+        }
+        
         // Parse repetitions (e.g., "3 times", "multiple times")
         if (message.contains("time")) {
             // Simple repetition parsing
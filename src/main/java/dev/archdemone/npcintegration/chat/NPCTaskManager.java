@@ -2,18 +2,27 @@ package dev.archdemone.npcintegration.chat;
 
 import dev.archdemone.npcintegration.NPCIntegrationPlugin;
 import dev.archdemone.npcintegration.managers.NPCManager;
+import dev.archdemone.npcintegration.tasks.ExecutionScheduler;
 import dev.archdemone.npcintegration.integrations.CitizensIntegration;
 import dev.archdemone.npcintegration.integrations.MythicMobsIntegration;
 import dev.archdemone.npcintegration.integrations.ModelEngineIntegration;
+import dev.archdemone.npcintegration.scanning.PlantingSpotFinder;
+import dev.archdemone.npcintegration.scanning.ScanKernel;
+import dev.archdemone.npcintegration.scanning.ResourceType;
+import dev.archdemone.npcintegration.scanning.ScanQuery;
+import dev.archdemone.npcintegration.scanning.ScanResult;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
 import net.citizensnpcs.api.npc.NPC;
 import org.bukkit.Location;
-import org.bukkit.Material;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 /**
  * Manages task execution for NPCs based on chat commands
@@ -29,7 +38,7 @@ public class NPCTaskManager {
         this.plugin = plugin;
         this.npcManager = plugin.getNPCManager();
         this.chatSystem = chatSystem;
-        this.activeTasks = new HashMap<>();
+        this.activeTasks = new ConcurrentHashMap<>(); // Chat arrives on async threads
     }
     
     /**
@@ -68,9 +77,10 @@ public class NPCTaskManager {
      * Starts a woodcutting task
      */
     private void startWoodcuttingTask(NPCManager.NPCDetails details, Player player) {
-        new BukkitRunnable() {
+        new ChatTaskLoop() {
             private int taskDuration = 0;
             private int treesChopped = 0;
+            private CompletableFuture<ScanResult> treeScan;
             
             @Override
             public void run() {
@@ -81,9 +91,19 @@ public class NPCTaskManager {
                 
                 taskDuration++;
                 
-                // Look for trees every 5 seconds
-                if (taskDuration % 100 == 0) {
-                    Location treeLocation = findNearbyTree(details);
+                // Look for trees every 5 seconds in the index, or with a scan that finishes off the main thread
+                if (taskDuration % 100 == 0 && treeScan == null) {
+                    Location treeLocation = findIndexed(details, ResourceType.TREE, 15);
+                    if (treeLocation != null) {
+                        chopTree(details, treeLocation);
+                        treesChopped++;
+                    } else {
+                        treeScan = startScan(details, ScanQuery.TREES, 15, 5, 5);
+                    }
+                }
+                if (treeScan != null && treeScan.isDone()) {
+                    Location treeLocation = takeNearest(details, treeScan, 15);
+                    treeScan = null;
                     if (treeLocation != null) {
                         chopTree(details, treeLocation);
                         treesChopped++;
@@ -106,16 +126,17 @@ public class NPCTaskManager {
                     cancel();
                 }
             }
-        }.runTaskTimer(plugin, 20L, 1L);
+        }.start(details);
     }
     
     /**
      * Starts a tree planting task
      */
     private void startPlantingTask(NPCManager.NPCDetails details, Player player) {
-        new BukkitRunnable() {
+        new ChatTaskLoop() {
             private int taskDuration = 0;
             private int saplingsPlanted = 0;
+            private final PlantingSpotFinder plantingSpots = new PlantingSpotFinder(plugin.getChunkGuard(), 8);
             
             @Override
             public void run() {
@@ -126,9 +147,9 @@ public class NPCTaskManager {
                 
                 taskDuration++;
                 
-                // Look for suitable planting spots every 10 seconds
+                // Plant every 10 seconds, taking spots from a batch found in one pass over the heightmaps
                 if (taskDuration % 200 == 0) {
-                    Location plantLocation = findPlantingSpot(details);
+                    Location plantLocation = nextPlantingSpot(details, plantingSpots, 10);
                     if (plantLocation != null) {
                         plantSapling(details, plantLocation);
                         saplingsPlanted++;
@@ -151,14 +172,14 @@ public class NPCTaskManager {
                     cancel();
                 }
             }
-        }.runTaskTimer(plugin, 20L, 1L);
+        }.start(details);
     }
     
     /**
      * Starts a following task
      */
     private void startFollowingTask(NPCManager.NPCDetails details, Player player) {
-        new BukkitRunnable() {
+        new ChatTaskLoop() {
             private int followDuration = 0;
             
             @Override
@@ -190,14 +211,14 @@ public class NPCTaskManager {
                     cancel();
                 }
             }
-        }.runTaskTimer(plugin, 20L, 1L);
+        }.start(details);
     }
     
     /**
      * Starts a repairing task
      */
     private void startRepairingTask(NPCManager.NPCDetails details, Player player) {
-        new BukkitRunnable() {
+        new ChatTaskLoop() {
             private int taskDuration = 0;
             
             @Override
@@ -225,14 +246,14 @@ public class NPCTaskManager {
                     cancel();
                 }
             }
-        }.runTaskTimer(plugin, 20L, 1L);
+        }.start(details);
     }
     
     /**
      * Starts a smithing task
      */
     private void startSmithingTask(NPCManager.NPCDetails details, Player player) {
-        new BukkitRunnable() {
+        new ChatTaskLoop() {
             private int taskDuration = 0;
             
             @Override
@@ -260,60 +281,85 @@ public class NPCTaskManager {
                     cancel();
                 }
             }
-        }.runTaskTimer(plugin, 20L, 1L);
+        }.start(details);
     }
     
     /**
-     * Finds nearby trees for woodcutting
+     * Looks up the nearest indexed resource around an NPC
      */
-    private Location findNearbyTree(NPCManager.NPCDetails details) {
+    private Location findIndexed(NPCManager.NPCDetails details, ResourceType type, int radius) {
         NPC npc = details.getCitizensNPC();
         if (npc == null || !npc.isSpawned()) {
             return null;
         }
         
         Location npcLocation = npc.getEntity().getLocation();
-        
-        // Search in a 15 block radius
-        for (int x = -15; x <= 15; x++) {
-            for (int z = -15; z <= 15; z++) {
-                for (int y = -5; y <= 5; y++) {
-                    Location checkLocation = npcLocation.clone().add(x, y, z);
-                    Block block = checkLocation.getBlock();
-                    
-                    if (isLogBlock(block)) {
-                        // Check if there's a tree structure
-                        if (hasTreeStructure(checkLocation)) {
-                            return checkLocation;
-                        }
-                    }
-                }
-            }
+        long target = plugin.getResourceIndex().findNearest(npcLocation.getWorld(), npcLocation.getBlockX(),
+            npcLocation.getBlockY(), npcLocation.getBlockZ(), radius, type);
+        return toLocation(npcLocation, target);
+    }
+    
+    /**
+     * Takes the next planting spot around an NPC from its finder's current batch
+     */
+    private Location nextPlantingSpot(NPCManager.NPCDetails details, PlantingSpotFinder finder, int radius) {
+        NPC npc = details.getCitizensNPC();
+        if (npc == null || !npc.isSpawned()) {
+            return null;
         }
         
-        return null;
+        Location npcLocation = npc.getEntity().getLocation();
+        long spot = finder.next(npcLocation.getWorld(), npcLocation.getBlockX(), npcLocation.getBlockY(),
+            npcLocation.getBlockZ(), radius, 2, 2);
+        return toLocation(npcLocation, spot);
     }
     
     /**
-     * Checks if a block is a log
+     * Unpacks a packed block position into a location in the NPC's world
      */
-    private boolean isLogBlock(Block block) {
-        String materialName = block.getType().name().toLowerCase();
-        return materialName.contains("log") || materialName.contains("wood");
+    private Location toLocation(Location npcLocation, long packed) {
+        if (packed == ScanKernel.NO_MATCH) {
+            return null;
+        }
+        return new Location(npcLocation.getWorld(), BlockPosUtil.unpackX(packed), BlockPosUtil.unpackY(packed),
+            BlockPosUtil.unpackZ(packed));
     }
     
     /**
-     * Checks if there's a proper tree structure
+     * Starts a background scan for resources around an NPC
      */
-    private boolean hasTreeStructure(Location baseLocation) {
-        // Simple check - look for leaves above the log
-        for (int y = 1; y <= 10; y++) {
-            Block block = baseLocation.clone().add(0, y, 0).getBlock();
-            if (block.getType().name().toLowerCase().contains("leaves")) {
-                return true;
-            }
+    private CompletableFuture<ScanResult> startScan(NPCManager.NPCDetails details, ScanQuery query, int radius,
+                                                    int below, int above) {
+        NPC npc = details.getCitizensNPC();
+        if (npc == null || !npc.isSpawned()) {
+            return null;
         }
-        return false;
+        
+        Location npcLocation = npc.getEntity().getLocation();
+        return plugin.getResourceScanner().scanArea(npcLocation.getWorld(), npcLocation.getBlockX(), npcLocation.getBlockZ(),
+            radius, npcLocation.getBlockY() - below, npcLocation.getBlockY() + above, query);
+    }
+    
+    /**
+     * Picks the target of a finished scan nearest to where the NPC is now
+     */
+    private Location takeNearest(NPCManager.NPCDetails details, CompletableFuture<ScanResult> scan, int radius) {
+        NPC npc = details.getCitizensNPC();
+        if (npc == null || !npc.isSpawned()) {
+            return null;
+        }
+        
+        ScanResult result;
+        try {
+            result = scan.join();
+        } catch (CompletionException | CancellationException e) {
+            plugin.getLogger().log(Level.WARNING, "Resource scan for NPC " + details.getName() + " failed", e);
+            return null;
+        }
+        
+        Location npcLocation = npc.getEntity().getLocation();
+        long target = result.nearest(npcLocation.getBlockX(), npcLocation.getBlockY(), npcLocation.getBlockZ(), radius * 2);
+        return toLocation(npcLocation, target);
     }
     
     /**
@@ -333,33 +379,6 @@ public class NPCTaskManager {
         }
     }
     
-    /**
-     * Finds suitable spots for planting saplings
-     */
-    private Location findPlantingSpot(NPCManager.NPCDetails details) {
-        NPC npc = details.getCitizensNPC();
-        if (npc == null || !npc.isSpawned()) {
-            return null;
-        }
-        
-        Location npcLocation = npc.getEntity().getLocation();
-        
-        // Look for grass blocks with air above them
-        for (int x = -10; x <= 10; x++) {
-            for (int z = -10; z <= 10; z++) {
-                Location checkLocation = npcLocation.clone().add(x, 0, z);
-                Block groundBlock = checkLocation.getBlock();
-                Block airBlock = checkLocation.clone().add(0, 1, 0).getBlock();
-                
-                if (groundBlock.getType() == Material.GRASS_BLOCK && airBlock.getType() == Material.AIR) {
-                    return checkLocation.clone().add(0, 1, 0);
-                }
-            }
-        }
-        
-        return null;
-    }
-    
     /**
      * Plants a sapling at the given location
      */
@@ -394,12 +413,8 @@ public class NPCTaskManager {
                 modelEngineIntegration.playAnimation(finalTargetEntity, modelName, "woodcutting");
                 
                 // Stop animation after 2 seconds
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        modelEngineIntegration.stopAnimation(finalTargetEntity, modelName, "woodcutting");
-                    }
-                }.runTaskLater(plugin, 40L);
+                scheduler().runLaterForEntity(finalTargetEntity, 40L,
+                    () -> modelEngineIntegration.stopAnimation(finalTargetEntity, modelName, "woodcutting"));
             }
         }
     }
@@ -421,12 +436,8 @@ public class NPCTaskManager {
                 modelEngineIntegration.playAnimation(finalTargetEntity, modelName, "planting");
                 
                 // Stop animation after 3 seconds
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        modelEngineIntegration.stopAnimation(finalTargetEntity, modelName, "planting");
-                    }
-                }.runTaskLater(plugin, 60L);
+                scheduler().runLaterForEntity(finalTargetEntity, 60L,
+                    () -> modelEngineIntegration.stopAnimation(finalTargetEntity, modelName, "planting"));
             }
         }
     }
@@ -465,12 +476,8 @@ public class NPCTaskManager {
                 modelEngineIntegration.playAnimation(finalTargetEntity, modelName, "smithing");
                 
                 // Stop animation after 4 seconds
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        modelEngineIntegration.stopAnimation(finalTargetEntity, modelName, "smithing");
-                    }
-                }.runTaskLater(plugin, 80L);
+                scheduler().runLaterForEntity(finalTargetEntity, 80L,
+                    () -> modelEngineIntegration.stopAnimation(finalTargetEntity, modelName, "smithing"));
             }
         }
     }
@@ -483,16 +490,51 @@ public class NPCTaskManager {
         if (npc != null && npc.isSpawned()) {
             Location npcLocation = npc.getEntity().getLocation();
             
-            // Send to all players within 10 blocks
-            for (Player player : plugin.getServer().getOnlinePlayers()) {
-                if (player.getLocation().distance(npcLocation) <= 10) {
-                    dev.archdemone.npcintegration.utils.MessageUtil.sendInfo(player, 
+            // Send to all players within 10 blocks, found among the entities of the NPC's own region
+            for (Entity nearby : npcLocation.getWorld().getNearbyEntities(npcLocation, 10, 10, 10)) {
+                if (nearby instanceof Player && nearby.getLocation().distanceSquared(npcLocation) <= 100) {
+                    dev.archdemone.npcintegration.utils.MessageUtil.sendInfo((Player) nearby, 
                         "&6[" + details.getName() + "] &e" + message);
                 }
             }
         }
     }
     
+    private ExecutionScheduler scheduler() {
+        return plugin.getEnhancedTaskManager().getTaskEngine().getScheduler();
+    }
+    
+    /**
+     * A chat task's loop, run every tick on the thread that owns its NPC
+     * Mirrors the run/cancel shape of BukkitRunnable, which region-threaded servers reject
+     */
+    private abstract class ChatTaskLoop implements Runnable {
+        private volatile ExecutionScheduler.Handle handle;
+        private volatile boolean cancelled;
+        
+        void start(NPCManager.NPCDetails details) {
+            NPC npc = details.getCitizensNPC();
+            if (npc == null || !npc.isSpawned()) {
+                return;
+            }
+            handle = scheduler().runForEntity(npc.getEntity(), 20L, 1L, () -> {
+                if (!cancelled) {
+                    run();
+                }
+            });
+            if (cancelled) {
+                handle.cancel();
+            }
+        }
+        
+        protected void cancel() {
+            cancelled = true;
+            if (handle != null) {
+                handle.cancel();
+            }
+        }
+    }
+    
     /**
      * Checks if NPC is still active
      */
@@ -2,17 +2,30 @@ package dev.archdemone.npcintegration.commands;
 
 import dev.archdemone.npcintegration.NPCIntegrationPlugin;
 import dev.archdemone.npcintegration.managers.NPCManager;
+import dev.archdemone.npcintegration.scanning.AsyncResourceScanner;
+import dev.archdemone.npcintegration.scanning.ChunkGuard;
+import dev.archdemone.npcintegration.scanning.CropTracker;
+import dev.archdemone.npcintegration.scanning.ResourceIndex;
+import dev.archdemone.npcintegration.scanning.ResourceType;
+import dev.archdemone.npcintegration.tasks.BlockMutationQueue;
 import dev.archdemone.npcintegration.tasks.EnhancedTaskManager;
+import dev.archdemone.npcintegration.tasks.TaskConfiguration;
 import dev.archdemone.npcintegration.tasks.TaskQueue;
 import dev.archdemone.npcintegration.tasks.NPCTask;
+import dev.archdemone.npcintegration.tasks.LodTier;
+import dev.archdemone.npcintegration.tasks.TaskEngine;
+import dev.archdemone.npcintegration.tasks.TaskTicker;
+import dev.archdemone.npcintegration.tasks.TickBudget;
 import dev.archdemone.npcintegration.utils.MessageUtil;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.Location;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Enhanced command system for managing NPC tasks and features
@@ -78,6 +91,14 @@ public class EnhancedNPCCommand implements CommandExecutor, TabCompleter {
                 handleListCommand(player);
                 break;
                 
+            case "engine":
+                handleEngineCommand(player);
+                break;
+                
+            case "bulk":
+                handleBulkCommand(player, args);
+                break;
+                
             default:
                 MessageUtil.sendError(player, "Unknown subcommand. Use /npcintegration help for available commands.");
                 break;
@@ -96,6 +117,8 @@ public class EnhancedNPCCommand implements CommandExecutor, TabCompleter {
         MessageUtil.sendInfo(player, "&e/npcintegration reload &7- Reload the plugin");
         MessageUtil.sendInfo(player, "&e/npcintegration save &7- Save all data");
         MessageUtil.sendInfo(player, "&e/npcintegration list &7- List all NPCs");
+        MessageUtil.sendInfo(player, "&e/npcintegration engine &7- Show task engine metrics");
+        MessageUtil.sendInfo(player, "&e/npcintegration bulk <task> <type:|radius:|ids:> &7- Assign a task to many NPCs");
         MessageUtil.sendInfo(player, "&7");
         MessageUtil.sendInfo(player, "&7Chat with NPCs using natural language:");
         MessageUtil.sendInfo(player, "&7- 'Can you chop some wood for me?'");
@@ -279,12 +302,219 @@ public class EnhancedNPCCommand implements CommandExecutor, TabCompleter {
         }
     }
     
+    private void handleEngineCommand(Player player) {
+        if (!player.hasPermission("npcintegration.admin")) {
+            MessageUtil.sendError(player, "You don't have permission to view engine metrics!");
+            return;
+        }
+        
+        TaskEngine engine = taskManager.getTaskEngine();
+        List<TaskTicker> shards = engine.getShards();
+        
+        // Sum counters across shards, the budget line shows the busiest shard
+        int active = 0, full = 0, reduced = 0, counterOnly = 0, resting = 0, suspended = 0, throttled = 0, pending = 0;
+        long demotions = 0, pauses = 0, drained = 0, deferrals = 0, overruns = 0, ticks = 0;
+        long blocksApplied = 0, blocksSkipped = 0, stacksDropped = 0, itemsDropped = 0;
+        int blocksQueued = 0, blocksLastTick = 0;
+        TickBudget busiest = null;
+        for (TaskTicker ticker : shards) {
+            active += ticker.getActiveCount();
+            full += ticker.countAtTier(LodTier.FULL);
+            reduced += ticker.countAtTier(LodTier.REDUCED);
+            counterOnly += ticker.countAtTier(LodTier.COUNTER_ONLY);
+            resting += ticker.getRestingCount();
+            suspended += ticker.getSuspendedCount();
+            throttled += ticker.countThrottled();
+            demotions += ticker.getWatchdog().getDemotions();
+            pauses += ticker.getWatchdog().getPauses();
+            pending += ticker.getInbox().getPendingCount();
+            drained += ticker.getInbox().getDrainedCount();
+            BlockMutationQueue mutations = ticker.getMutations();
+            blocksQueued += mutations.getQueued();
+            blocksApplied += mutations.getApplied();
+            blocksSkipped += mutations.getSkipped();
+            blocksLastTick += mutations.getLastTickApplied();
+            stacksDropped += mutations.getStacksDropped();
+            itemsDropped += mutations.getItemsDropped();
+            TickBudget budget = ticker.getBudget();
+            deferrals += budget.getDeferrals();
+            overruns += budget.getOverruns();
+            ticks += budget.getTicks();
+            if (busiest == null || budget.getAverageTickMillis() > busiest.getAverageTickMillis()) {
+                busiest = budget;
+            }
+        }
+        
+        MessageUtil.sendInfo(player, "&6=== Task Engine ===");
+        MessageUtil.sendInfo(player, "&eScheduler: &7" + (engine.isRegionized() ? "emulated regions" : "main thread") +
+            ", " + shards.size() + " shard" + (shards.size() == 1 ? "" : "s"));
+        MessageUtil.sendInfo(player, "&eActive Executors: &7" + active +
+            " &8(full " + full + ", reduced " + reduced + ", counter-only " + counterOnly + ")");
+        MessageUtil.sendInfo(player, "&eResting (between repetitions): &7" + resting);
+        MessageUtil.sendInfo(player, "&eSuspended (unloaded chunks): &7" + suspended);
+        MessageUtil.sendInfo(player, "&eTree Targets: &7" + taskManager.getTreeTargetPool().getTargetCount() + " known, " +
+            taskManager.getTreeTargetPool().getReservationCount() + " claimed");
+        AsyncResourceScanner scanner = plugin.getResourceScanner();
+        MessageUtil.sendInfo(player, "&eResource Scanner: &7" + scanner.getPendingScans() + " scans running, " +
+            scanner.getChunksScanned() + " chunks scanned, " + scanner.getChunksSkipped() + " skipped &8(" + scanner.getParallelism() + " workers)");
+        ResourceIndex resourceIndex = plugin.getResourceIndex();
+        if (resourceIndex.isEnabled()) {
+            MessageUtil.sendInfo(player, "&eResource Index: &7" + resourceIndex.getIndexedChunkCount() + " chunks &8(" +
+                resourceIndex.count(ResourceType.TREE) + " trees, " + resourceIndex.count(ResourceType.ORE) + " ores, " +
+                resourceIndex.count(ResourceType.MATURE_CROP) + " ripe crops, " +
+                resourceIndex.count(ResourceType.PLANTING_SPOT) + " planting spots)");
+        }
+        ChunkGuard chunkGuard = plugin.getChunkGuard();
+        MessageUtil.sendInfo(player, "&eChunk Guard: &7" + chunkGuard.getSkippedProbes() + " probes skipped, " +
+            chunkGuard.getTruncatedScans() + " scans truncated" + (chunkGuard.isLoadingInBackground() ?
+            " &8(" + chunkGuard.getQueuedLoads() + " loads queued, " + chunkGuard.getPendingLoads() + " pending)" : ""));
+        CropTracker cropTracker = plugin.getCropTracker();
+        if (cropTracker.isEnabled()) {
+            MessageUtil.sendInfo(player, "&eCrop Tracker: &7" + cropTracker.getTrackedCount() + " ripe crops");
+        }
+        MessageUtil.sendInfo(player, "&eWatchdog: &7" + throttled + " throttled &8(" + demotions + " demotions, " +
+            pauses + " pauses)");
+        MessageUtil.sendInfo(player, "&eBlock Changes: &7" + blocksApplied + " applied, " + blocksQueued + " queued, " +
+            blocksLastTick + " last tick &8(" + blocksSkipped + " skipped, " + itemsDropped + " items in " + stacksDropped + " stacks)");
+        MessageUtil.sendInfo(player, "&eCommand Inbox: &7" + pending + " pending, " + drained + " applied");
+        if (busiest != null) {
+            MessageUtil.sendInfo(player, "&eTick Budget: &7" + String.format("%.2f ms", busiest.getBudgetMillis()) + " per shard");
+            MessageUtil.sendInfo(player, "&eBusiest Shard: &7" + String.format("%.3f ms", busiest.getLastTickMillis()) +
+                " &8(avg " + String.format("%.3f", busiest.getAverageTickMillis()) +
+                ", max " + String.format("%.3f", busiest.getMaxTickMillis()) + ")");
+        }
+        MessageUtil.sendInfo(player, "&eDeferrals: &7" + deferrals + " total");
+        MessageUtil.sendInfo(player, "&eOverruns: &7" + overruns + " of " + ticks + " shard ticks");
+    }
+    
+    private void handleBulkCommand(Player player, String[] args) {
+        if (!player.hasPermission("npcintegration.admin")) {
+            MessageUtil.sendError(player, "You don't have permission to assign bulk tasks!");
+            return;
+        }
+        
+        if (args.length < 3) {
+            MessageUtil.sendError(player, "Usage: /npcintegration bulk <task> <type:<npc_type>|radius:<blocks>|ids:<id,id,...>>");
+            return;
+        }
+        
+        String taskType = args[1].toLowerCase();
+        BulkSelection selection = selectNPCs(player, args[2]);
+        if (selection == null) {
+            return;
+        }
+        if (selection.targets.isEmpty()) {
+            MessageUtil.sendError(player, "No NPCs matched " + args[2] + "!");
+            return;
+        }
+        
+        // Each NPC is assigned on the thread that owns it; the summary follows the last one
+        String selector = args[2];
+        taskManager.submitTaskBulk(selection.targets, selection.filter, taskType, player,
+            TaskConfiguration.createDefaultConfig(taskType), result -> {
+                if (result.isUnknownTaskType()) {
+                    return; // Already reported
+                }
+                if (result.getMatched() == 0) {
+                    MessageUtil.sendError(player, "No NPCs matched " + selector + "!");
+                    return;
+                }
+                MessageUtil.sendSuccess(player, "Assigned " + taskType + " to " + result.getAssigned() + " of " +
+                    result.getMatched() + " NPCs (" + result.getStarted() + " started, " + result.getQueued() + " queued)");
+                if (result.getMissingTool() > 0) {
+                    MessageUtil.sendWarning(player, result.getMissingTool() + " NPCs are missing the required tool");
+                }
+                if (result.getUnavailable() > 0) {
+                    MessageUtil.sendWarning(player, result.getUnavailable() + " NPCs are not spawned");
+                }
+                if (result.getQueueFull() > 0) {
+                    MessageUtil.sendWarning(player, result.getQueueFull() + " NPCs have a full task list");
+                }
+            });
+    }
+    
+    /**
+     * Resolves a bulk selector into NPCs, or null after reporting an invalid selector
+     * A radius is only checked later, on the thread that owns each NPC, since reading
+     * the location of an NPC in another region is not safe from here
+     */
+    private BulkSelection selectNPCs(Player player, String selector) {
+        int separator = selector.indexOf(':');
+        if (separator < 0) {
+            MessageUtil.sendError(player, "Invalid selector. Use type:<npc_type>, radius:<blocks> or ids:<id,id,...>");
+            return null;
+        }
+        
+        String kind = selector.substring(0, separator).toLowerCase();
+        String value = selector.substring(separator + 1);
+        List<NPCManager.NPCDetails> targets = new ArrayList<>();
+        Predicate<Location> filter = location -> true;
+        
+        switch (kind) {
+            case "type":
+                targets.addAll(npcManager.getNPCsByType(value));
+                break;
+                
+            case "radius":
+                double radius;
+                try {
+                    radius = Double.parseDouble(value);
+                } catch (NumberFormatException e) {
+                    MessageUtil.sendError(player, "Invalid radius. Must be a number.");
+                    return null;
+                }
+                
+                Location center = player.getLocation();
+                double radiusSquared = radius * radius;
+                for (NPCManager.NPCDetails details : npcManager.getAllNPCDetails()) {
+                    if (details.getCitizensNPC() != null && details.getCitizensNPC().isSpawned()) {
+                        targets.add(details);
+                    }
+                }
+                filter = location -> location.getWorld() == center.getWorld() && location.distanceSquared(center) <= radiusSquared;
+                break;
+                
+            case "ids":
+                for (String id : value.split(",")) {
+                    try {
+                        NPCManager.NPCDetails details = npcManager.getNPCDetails(Integer.parseInt(id.trim()));
+                        if (details != null) {
+                            targets.add(details);
+                        }
+                    } catch (NumberFormatException e) {
+                        MessageUtil.sendError(player, "Invalid NPC ID: " + id);
+                        return null;
+                    }
+                }
+                break;
+                
+            default:
+                MessageUtil.sendError(player, "Unknown selector '" + kind + "'. Use type, radius or ids.");
+                return null;
+        }
+        
+        return new BulkSelection(targets, filter);
+    }
+    
+    /**
+     * NPCs picked by a bulk selector and the check each must pass where it stands
+     */
+    private static final class BulkSelection {
+        private final List<NPCManager.NPCDetails> targets;
+        private final Predicate<Location> filter;
+        
+        private BulkSelection(List<NPCManager.NPCDetails> targets, Predicate<Location> filter) {
+            this.targets = targets;
+            this.filter = filter;
+        }
+    }
+    
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         List<String> completions = new ArrayList<>();
         
         if (args.length == 1) {
-            List<String> subCommands = Arrays.asList("help", "status", "tasks", "give", "clear", "reload", "save", "list");
+            List<String> subCommands = Arrays.asList("help", "status", "tasks", "give", "clear", "reload", "save", "list", "engine", "bulk");
             for (String subCommand : subCommands) {
                 if (subCommand.toLowerCase().startsWith(args[0].toLowerCase())) {
                     completions.add(subCommand);
@@ -298,6 +528,18 @@ public class EnhancedNPCCommand implements CommandExecutor, TabCompleter {
                 for (NPCManager.NPCDetails details : npcManager.getAllNPCDetails()) {
                     completions.add(String.valueOf(details.getCitizensId()));
                 }
+            } else if (subCommand.equals("bulk")) {
+                for (String taskType : Arrays.asList("woodcutting", "mining", "farming", "planting", "following", "repairing", "smithing")) {
+                    if (taskType.startsWith(args[1].toLowerCase())) {
+                        completions.add(taskType);
+                    }
+                }
+            }
+        } else if (args.length == 3 && args[0].toLowerCase().equals("bulk")) {
+            for (String selector : Arrays.asList("type:", "radius:", "ids:")) {
+                if (selector.startsWith(args[2].toLowerCase())) {
+                    completions.add(selector);
+                }
             }
         } else if (args.length == 3 && args[0].toLowerCase().equals("give")) {
             // Add tool types
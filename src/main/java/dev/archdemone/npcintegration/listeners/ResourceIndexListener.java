@@ -0,0 +1,77 @@
+package dev.archdemone.npcintegration.listeners;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.scanning.CropTracker;
+import dev.archdemone.npcintegration.scanning.ResourceIndex;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+
+/**
+ * Keeps the resource index and crop tracker in step with chunk loading and block changes
+ */
+public class ResourceIndexListener implements Listener {
+
+    private final ResourceIndex index;
+    private final CropTracker crops;
+
+    public ResourceIndexListener(NPCIntegrationPlugin plugin) {
+        this.index = plugin.getResourceIndex();
+        this.crops = plugin.getCropTracker();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        index.indexChunk(event.getChunk());
+        crops.trackChunk(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        index.removeChunk(event.getChunk());
+        crops.removeChunk(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        changed(event.getBlock());
+        removed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        changed(event.getBlock());
+        removed(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockGrow(BlockGrowEvent event) {
+        Block block = event.getBlock();
+        changed(block);
+        crops.cropGrew(block.getWorld(), block.getX(), block.getY(), block.getZ(), event.getNewState().getBlockData());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent event) {
+        index.blockChanged(event.getWorld(), event.getLocation().getBlockX(), event.getLocation().getBlockZ());
+        for (BlockState state : event.getBlocks()) {
+            index.blockChanged(event.getWorld(), state.getX(), state.getZ());
+        }
+    }
+
+    private void changed(Block block) {
+        index.blockChanged(block.getWorld(), block.getX(), block.getZ());
+    }
+
+    private void removed(Block block) {
+        crops.cropRemoved(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+}
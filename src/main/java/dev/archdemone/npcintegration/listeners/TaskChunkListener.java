@@ -0,0 +1,49 @@
+package dev.archdemone.npcintegration.listeners;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.tasks.EnhancedTaskManager;
+import dev.archdemone.npcintegration.tasks.TaskEngine;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Suspends NPC tasks when their chunk unloads and catches them up when it loads again
+ * Tree targets found in an unloading chunk are dropped from the shared pool as well
+ */
+public class TaskChunkListener implements Listener {
+    
+    private final NPCIntegrationPlugin plugin;
+    
+    public TaskChunkListener(NPCIntegrationPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        EnhancedTaskManager taskManager = plugin.getEnhancedTaskManager();
+        if (taskManager == null) {
+            return;
+        }
+        TaskEngine engine = taskManager.getTaskEngine();
+        if (engine != null) {
+            engine.suspendChunk(event.getChunk());
+        }
+        taskManager.getTreeTargetPool().forgetChunk(event.getWorld(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        TaskEngine engine = getEngine();
+        if (engine != null) {
+            engine.resumeChunk(event.getChunk());
+        }
+    }
+    
+    private TaskEngine getEngine() {
+        EnhancedTaskManager taskManager = plugin.getEnhancedTaskManager();
+        return taskManager != null ? taskManager.getTaskEngine() : null;
+    }
+}
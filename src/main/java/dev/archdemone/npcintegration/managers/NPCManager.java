@@ -12,6 +12,7 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manager class for handling NPC operations across all integrations
@@ -23,7 +24,7 @@ public class NPCManager {
     
     public NPCManager(NPCIntegrationPlugin plugin) {
         this.plugin = plugin;
-        this.npcDetails = new HashMap<>();
+        this.npcDetails = new ConcurrentHashMap<>(); // Read from region threads
         loadNPCs();
     }
     
@@ -0,0 +1,218 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Searches chunk snapshots for resources on a worker pool
+ * Snapshots are captured on the thread that owns the chunks, then a fork/join task
+ * splits the chunk list and scans the halves in parallel. Callers get a future and
+ * should apply the result on their own thread on a later tick
+ */
+public class AsyncResourceScanner {
+
+    private static final int CHUNKS_PER_LEAF = 2; // Smallest slice a worker scans without splitting further
+
+    private final NPCIntegrationPlugin plugin;
+    private final ChunkGuard chunkGuard;
+    private final ForkJoinPool pool;
+    private final AtomicInteger pendingScans;
+    private final AtomicLong chunksScanned;
+    private final AtomicLong chunksSkipped;
+
+    public AsyncResourceScanner(NPCIntegrationPlugin plugin) {
+        this.plugin = plugin;
+        this.chunkGuard = plugin.getChunkGuard();
+        int threads = plugin.getConfig().getInt("performance.scanner-threads", 0);
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("NPCIntegration-Scanner-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, (thread, error) -> plugin.getLogger().log(Level.WARNING, "Resource scan failed on " + thread.getName(), error), false);
+        this.pendingScans = new AtomicInteger();
+        this.chunksScanned = new AtomicLong();
+        this.chunksSkipped = new AtomicLong();
+    }
+
+    /**
+     * Scans every loaded chunk touching a square around a position
+     * Must be called on the thread that owns those chunks
+     */
+    public CompletableFuture<ScanResult> scanArea(World world, int centerX, int centerZ, int radius,
+                                                  int minY, int maxY, ScanQuery query) {
+        int minChunkX = (centerX - radius) >> 4;
+        int maxChunkX = (centerX + radius) >> 4;
+        int minChunkZ = (centerZ - radius) >> 4;
+        int maxChunkZ = (centerZ + radius) >> 4;
+
+        long[] chunkKeys = new long[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+        int count = 0;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                chunkKeys[count++] = BlockPosUtil.chunkKey(chunkX, chunkZ);
+            }
+        }
+        return scanChunks(world, chunkKeys, count, minY, maxY, query);
+    }
+
+    /**
+     * Scans the given chunks, skipping any that are not loaded rather than loading them
+     * Chunks whose palettes can't hold what the query looks for are skipped before
+     * they are even copied. Must be called on the thread that owns those chunks
+     */
+    public CompletableFuture<ScanResult> scanChunks(World world, long[] chunkKeys, int count,
+                                                    int minY, int maxY, ScanQuery query) {
+        int bottom = Math.max(minY, world.getMinHeight());
+        int top = Math.min(maxY, world.getMaxHeight() - 1);
+        int worldMinY = world.getMinHeight();
+        int worldMaxY = world.getMaxHeight() - 1;
+        PaletteFilter filter = query.filter();
+
+        // Capture here, on the owning thread; the workers only ever see the copies
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[count];
+        int captured = 0;
+        boolean truncated = false;
+        for (int i = 0; i < count; i++) {
+            int chunkX = BlockPosUtil.chunkKeyX(chunkKeys[i]);
+            int chunkZ = BlockPosUtil.chunkKeyZ(chunkKeys[i]);
+            if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                chunkGuard.requestLoad(world, chunkX, chunkZ);
+                truncated = true;
+                continue;
+            }
+            Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+            if (filter != null && !filter.mayContain(chunk)) {
+                chunksSkipped.incrementAndGet();
+                continue;
+            }
+            snapshots[captured++] = chunk.getChunkSnapshot(false, false, false);
+        }
+        if (truncated) {
+            chunkGuard.scanTruncated();
+        }
+
+        if (captured == 0 || bottom > top) {
+            return CompletableFuture.completedFuture(new ScanResult(new long[0], new int[1], new long[0]));
+        }
+
+        ChunkSnapshot[] work = Arrays.copyOf(snapshots, captured);
+        pendingScans.incrementAndGet();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    ScanResult result = new ScanTask(work, 0, work.length, worldMinY, worldMaxY, bottom, top, query).invoke();
+                    chunksScanned.addAndGet(work.length);
+                    return result;
+                } finally {
+                    pendingScans.decrementAndGet();
+                }
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            pendingScans.decrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs other snapshot work on the scanner's workers
+     */
+    <T> CompletableFuture<T> supply(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, pool);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops the workers, scans still running are abandoned
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public int getPendingScans() {
+        return pendingScans.get();
+    }
+
+    public long getChunksScanned() {
+        return chunksScanned.get();
+    }
+
+    public long getChunksSkipped() {
+        return chunksSkipped.get();
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Scans a slice of the snapshot list, splitting it in half until slices are small
+     */
+    private static final class ScanTask extends RecursiveTask<ScanResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkSnapshot[] snapshots;
+        private final int from;
+        private final int to;
+        private final int worldMinY;
+        private final int worldMaxY;
+        private final int minY;
+        private final int maxY;
+        private final ScanQuery query;
+
+        private ScanTask(ChunkSnapshot[] snapshots, int from, int to, int worldMinY, int worldMaxY, int minY, int maxY,
+                         ScanQuery query) {
+            this.snapshots = snapshots;
+            this.from = from;
+            this.to = to;
+            this.worldMinY = worldMinY;
+            this.worldMaxY = worldMaxY;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.query = query;
+        }
+
+        @Override
+        protected ScanResult compute() {
+            if (to - from > CHUNKS_PER_LEAF) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(snapshots, from, middle, worldMinY, worldMaxY, minY, maxY, query);
+                left.fork();
+                ScanResult right = new ScanTask(snapshots, middle, to, worldMinY, worldMaxY, minY, maxY, query).compute();
+                return ScanResult.merge(left.join(), right);
+            }
+
+            long[] chunkKeys = new long[to - from];
+            int[] offsets = new int[to - from + 1];
+            LongBuffer targets = new LongBuffer();
+            for (int i = from; i < to; i++) {
+                ChunkSnapshot snapshot = snapshots[i];
+                chunkKeys[i - from] = BlockPosUtil.chunkKey(snapshot.getX(), snapshot.getZ());
+                offsets[i - from] = targets.size();
+                query.scan(snapshot, worldMinY, worldMaxY, minY, maxY, targets);
+            }
+            offsets[to - from] = targets.size();
+            return new ScanResult(chunkKeys, offsets, Arrays.copyOf(targets.array(), targets.size()));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package dev.archdemone.npcintegration.scanning;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precomputed block classes indexed by Material ordinal
+ * Names are matched once when the class loads, so a lookup during a scan
+ * is an array read instead of a string copy
+ */
+public class BlockClassifier {
+
+    public static final int LOG = 1;
+    public static final int LEAVES = 1 << 1;
+    public static final int ORE = 1 << 2;
+    public static final int CROP = 1 << 3;
+    public static final int PLANTABLE_GROUND = 1 << 4; // Saplings and flowers can root here
+    public static final int AIR = 1 << 5;
+
+    private static final byte[] FLAGS = new byte[Material.values().length];
+
+    static {
+        for (Material material : Material.values()) {
+            String name = material.name();
+            if (name.startsWith("LEGACY_")) {
+                continue;
+            }
+
+            int flags = 0;
+            // Stripped logs never generate in trees, they are a player's build
+            if (!name.startsWith("STRIPPED_") && (name.endsWith("_LOG") || name.endsWith("_WOOD") || name.endsWith("_HYPHAE"))) {
+                flags |= LOG;
+            }
+            if (name.endsWith("_LEAVES") || name.endsWith("_WART_BLOCK")) {
+                flags |= LEAVES;
+            }
+            if (name.endsWith("_ORE") || material == Material.ANCIENT_DEBRIS) {
+                flags |= ORE;
+            }
+            if (material.isAir()) {
+                flags |= AIR;
+            }
+            FLAGS[material.ordinal()] = (byte) flags;
+        }
+
+        // Huge fungus stems are trunks; mushroom, melon, pumpkin and dripleaf stems are not
+        FLAGS[Material.CRIMSON_STEM.ordinal()] |= LOG;
+        FLAGS[Material.WARPED_STEM.ordinal()] |= LOG;
+
+        for (Material crop : new Material[]{Material.WHEAT, Material.CARROTS, Material.POTATOES,
+                Material.BEETROOTS, Material.NETHER_WART, Material.TORCHFLOWER_CROP, Material.PITCHER_CROP}) {
+            FLAGS[crop.ordinal()] |= CROP;
+        }
+
+        for (Material ground : new Material[]{Material.GRASS_BLOCK, Material.DIRT, Material.COARSE_DIRT,
+                Material.PODZOL, Material.ROOTED_DIRT, Material.MOSS_BLOCK, Material.MUD, Material.FARMLAND}) {
+            FLAGS[ground.ordinal()] |= PLANTABLE_GROUND;
+        }
+    }
+
+    /**
+     * Gets every class a material belongs to as a bit set
+     */
+    public static int flags(Material material) {
+        return FLAGS[material.ordinal()];
+    }
+
+    /**
+     * Checks whether a material belongs to any of the classes in the mask
+     */
+    public static boolean matches(Material material, int mask) {
+        return (FLAGS[material.ordinal()] & mask) != 0;
+    }
+
+    /**
+     * Lists every material in any of the classes in the mask
+     */
+    public static Material[] materials(int mask) {
+        List<Material> materials = new ArrayList<>();
+        for (Material material : Material.values()) {
+            if ((FLAGS[material.ordinal()] & mask) != 0) {
+                materials.add(material);
+            }
+        }
+        return materials.toArray(new Material[0]);
+    }
+
+    public static boolean isLog(Material material) {
+        return (FLAGS[material.ordinal()] & LOG) != 0;
+    }
+
+    public static boolean isLeaves(Material material) {
+        return (FLAGS[material.ordinal()] & LEAVES) != 0;
+    }
+
+    public static boolean isOre(Material material) {
+        return (FLAGS[material.ordinal()] & ORE) != 0;
+    }
+
+    public static boolean isCrop(Material material) {
+        return (FLAGS[material.ordinal()] & CROP) != 0;
+    }
+
+    public static boolean isPlantableGround(Material material) {
+        return (FLAGS[material.ordinal()] & PLANTABLE_GROUND) != 0;
+    }
+
+    public static boolean isAir(Material material) {
+        return (FLAGS[material.ordinal()] & AIR) != 0;
+    }
+}
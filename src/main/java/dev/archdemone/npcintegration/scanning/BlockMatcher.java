@@ -0,0 +1,12 @@
+package dev.archdemone.npcintegration.scanning;
+
+import org.bukkit.World;
+
+/**
+ * Test a search applies to each probed block position
+ */
+@FunctionalInterface
+public interface BlockMatcher {
+
+    boolean matches(World world, int x, int y, int z);
+}
@@ -0,0 +1,121 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.World;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Keeps NPC world probes away from unloaded chunks
+ * Reading a block in an unloaded chunk loads it synchronously on the calling thread, so
+ * every probe the tasks make at a distance asks here first. Probes and scans cut short
+ * by an unloaded chunk are counted, and the chunk can be queued for loading in the
+ * background through Paper's async chunk API so the next scan finds it
+ */
+public class ChunkGuard {
+
+    private static final int MAX_PENDING_LOADS = 16; // Background loads in flight at once
+
+    private final NPCIntegrationPlugin plugin;
+    private final boolean loadInBackground;
+    private final Method getChunkAtAsync;
+    private final Map<UUID, Set<Long>> pendingLoads;
+    private final AtomicLong skippedProbes;
+    private final AtomicLong truncatedScans;
+    private final AtomicLong queuedLoads;
+
+    public ChunkGuard(NPCIntegrationPlugin plugin) {
+        this.plugin = plugin;
+        this.getChunkAtAsync = findAsyncLoader();
+        this.loadInBackground = plugin.getConfig().getBoolean("performance.load-chunks-for-scans", false) &&
+            getChunkAtAsync != null;
+        this.pendingLoads = new ConcurrentHashMap<>();
+        this.skippedProbes = new AtomicLong();
+        this.truncatedScans = new AtomicLong();
+        this.queuedLoads = new AtomicLong();
+    }
+
+    private static Method findAsyncLoader() {
+        try {
+            return World.class.getMethod("getChunkAtAsync", int.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null; // Plain Bukkit has no async chunk loading
+        }
+    }
+
+    /**
+     * Checks whether a block can be read without loading its chunk
+     * A false answer counts as a skipped probe and may queue the chunk for loading
+     */
+    public boolean canProbe(World world, int x, int z) {
+        if (world.isChunkLoaded(x >> 4, z >> 4)) {
+            return true;
+        }
+        skippedProbes.incrementAndGet();
+        requestLoad(world, x >> 4, z >> 4);
+        return false;
+    }
+
+    /**
+     * Records a scan that had to leave out unloaded chunks
+     */
+    public void scanTruncated() {
+        truncatedScans.incrementAndGet();
+    }
+
+    /**
+     * Queues an unloaded chunk for loading in the background when that is enabled and supported
+     */
+    public void requestLoad(World world, int chunkX, int chunkZ) {
+        if (!loadInBackground) {
+            return;
+        }
+
+        Set<Long> pending = pendingLoads.computeIfAbsent(world.getUID(), id -> ConcurrentHashMap.newKeySet());
+        long key = BlockPosUtil.chunkKey(chunkX, chunkZ);
+        if (pending.size() >= MAX_PENDING_LOADS || !pending.add(key)) {
+            return;
+        }
+
+        try {
+            CompletableFuture<?> load = (CompletableFuture<?>) getChunkAtAsync.invoke(world, chunkX, chunkZ);
+            queuedLoads.incrementAndGet();
+            load.whenComplete((chunk, error) -> pending.remove(key));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            pending.remove(key);
+            plugin.getLogger().log(Level.FINE, "Could not queue chunk " + chunkX + ", " + chunkZ + " for loading", e);
+        }
+    }
+
+    public boolean isLoadingInBackground() {
+        return loadInBackground;
+    }
+
+    public long getSkippedProbes() {
+        return skippedProbes.get();
+    }
+
+    public long getTruncatedScans() {
+        return truncatedScans.get();
+    }
+
+    public long getQueuedLoads() {
+        return queuedLoads.get();
+    }
+
+    public int getPendingLoads() {
+        int count = 0;
+        for (Set<Long> pending : pendingLoads.values()) {
+            count += pending.size();
+        }
+        return count;
+    }
+}
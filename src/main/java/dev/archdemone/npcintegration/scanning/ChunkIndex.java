@@ -0,0 +1,308 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.Ageable;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Resources in one chunk, as kept by the {@link ResourceIndex}
+ * Built from a snapshot on a worker, then kept current by marking columns dirty when
+ * their blocks change; dirty columns are re-read from the world before the next query.
+ * Every method is synchronized since the worker, the chunk's own thread and any
+ * querying thread can reach the same chunk
+ */
+final class ChunkIndex {
+
+    private static final short NONE = Short.MIN_VALUE;
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final int minY;
+    private final int maxY;
+    private short[] trees; // Tree base y per column
+    private short[] plantingSpots; // Planting spot y per column
+    private LongBuffer ores;
+    private LongBuffer crops;
+    private final long[] dirty; // One bit per column
+    private boolean anyDirty;
+    private boolean ready;
+
+    ChunkIndex(int chunkX, int chunkZ, int minY, int maxY) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.trees = new short[256];
+        this.plantingSpots = new short[256];
+        this.ores = new LongBuffer(16);
+        this.crops = new LongBuffer(16);
+        this.dirty = new long[4];
+    }
+
+    /**
+     * Indexes every column of a snapshot, safe off the main thread
+     * Sections that are all air are stepped over, and crop ages are only read when the
+     * chunk's palettes hold a mature crop at all
+     */
+    static ChunkIndex build(ChunkSnapshot snapshot, int minY, int maxY, PaletteFilter matureCrops) {
+        ChunkIndex index = new ChunkIndex(snapshot.getX(), snapshot.getZ(), minY, maxY);
+        ColumnReader reader = new ColumnReader() {
+            @Override
+            public Material type(int localX, int y, int localZ) {
+                return snapshot.getBlockType(localX, y, localZ);
+            }
+
+            @Override
+            public BlockData data(int localX, int y, int localZ) {
+                return snapshot.getBlockData(localX, y, localZ);
+            }
+        };
+        boolean[] emptySections = new boolean[((maxY - minY) >> 4) + 1];
+        for (int section = 0; section < emptySections.length; section++) {
+            emptySections[section] = snapshot.isSectionEmpty(section);
+        }
+        boolean checkCrops = matureCrops.mayContain(snapshot);
+        for (int column = 0; column < 256; column++) {
+            index.indexColumn(reader, column & 15, column >> 4, emptySections, checkCrops);
+        }
+        return index;
+    }
+
+    /**
+     * Takes over the contents of a freshly built index, keeping columns marked dirty meanwhile
+     */
+    synchronized void install(ChunkIndex built) {
+        this.trees = built.trees;
+        this.plantingSpots = built.plantingSpots;
+        this.ores = built.ores;
+        this.crops = built.crops;
+        this.ready = true;
+    }
+
+    synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Flags a column for re-reading before the next query
+     */
+    synchronized void markDirty(int localX, int localZ) {
+        int column = (localZ << 4) | localX;
+        dirty[column >> 6] |= 1L << column;
+        anyDirty = true;
+    }
+
+    /**
+     * Re-reads dirty columns from the world, must run on the thread that owns the chunk
+     */
+    private void refresh(World world) {
+        if (!anyDirty || !ready) {
+            return;
+        }
+
+        int baseX = chunkX << 4;
+        int baseZ = chunkZ << 4;
+        ColumnReader reader = new ColumnReader() {
+            @Override
+            public Material type(int localX, int y, int localZ) {
+                return world.getType(baseX + localX, y, baseZ + localZ);
+            }
+
+            @Override
+            public BlockData data(int localX, int y, int localZ) {
+                return world.getBlockData(baseX + localX, y, baseZ + localZ);
+            }
+        };
+
+        for (int word = 0; word < dirty.length; word++) {
+            long bits = dirty[word];
+            while (bits != 0) {
+                int column = (word << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                removeColumn(ores, column);
+                removeColumn(crops, column);
+                indexColumn(reader, column & 15, column >> 4, null, true);
+            }
+            dirty[word] = 0;
+        }
+        anyDirty = false;
+    }
+
+    private void removeColumn(LongBuffer positions, int column) {
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            long position = positions.get(i);
+            if (((BlockPosUtil.unpackZ(position) & 15) << 4 | (BlockPosUtil.unpackX(position) & 15)) == column) {
+                positions.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * Reads one column bottom to top, recording every resource it holds
+     * Each block is read once; a tree is found by its trunk's bottom log, so a tall trunk
+     * costs no more than a short one
+     * @param emptySections sections known to be all air, or null to read every block
+     */
+    private void indexColumn(ColumnReader reader, int localX, int localZ, boolean[] emptySections, boolean checkCrops) {
+        int column = (localZ << 4) | localX;
+        int x = (chunkX << 4) + localX;
+        int z = (chunkZ << 4) + localZ;
+        short tree = NONE;
+        short plantingSpot = NONE;
+        int trunkBottom = NONE; // Current run of logs, a tree once leaves show up close enough above it
+        int trunkTop = NONE;
+
+        int belowFlags = 0;
+        for (int y = minY; y <= maxY; y++) {
+            if (emptySections != null && ((y - minY) & 15) == 0 && emptySections[(y - minY) >> 4]) {
+                // Nothing but air, only its bottom block can be a planting spot
+                if ((belowFlags & BlockClassifier.PLANTABLE_GROUND) != 0) {
+                    plantingSpot = (short) y;
+                }
+                belowFlags = BlockClassifier.AIR;
+                y += 15;
+                continue;
+            }
+
+            Material type = reader.type(localX, y, localZ);
+            int flags = BlockClassifier.flags(type);
+
+            if ((flags & BlockClassifier.LOG) != 0) {
+                if ((belowFlags & BlockClassifier.LOG) == 0) {
+                    trunkBottom = y;
+                }
+                trunkTop = y;
+            } else if ((flags & BlockClassifier.LEAVES) != 0 && tree == NONE && trunkTop != NONE &&
+                y - trunkTop <= ScanKernel.LEAF_SEARCH_HEIGHT) {
+                tree = (short) trunkBottom;
+            }
+            if ((flags & BlockClassifier.ORE) != 0) {
+                ores.add(BlockPosUtil.pack(x, y, z));
+            }
+            if ((flags & BlockClassifier.CROP) != 0 && checkCrops && isMature(reader.data(localX, y, localZ))) {
+                crops.add(BlockPosUtil.pack(x, y, z));
+            }
+            if ((flags & BlockClassifier.AIR) != 0 && (belowFlags & BlockClassifier.PLANTABLE_GROUND) != 0) {
+                plantingSpot = (short) y; // Keeps the highest
+            }
+            belowFlags = flags;
+        }
+
+        trees[column] = tree;
+        plantingSpots[column] = plantingSpot;
+    }
+
+    private static boolean isMature(BlockData data) {
+        return data instanceof Ageable && ((Ageable) data).getAge() >= ((Ageable) data).getMaximumAge();
+    }
+
+    /**
+     * Appends every resource of a type within a height band
+     */
+    synchronized int collect(World world, ResourceType type, int bandMinY, int bandMaxY, LongBuffer out) {
+        refresh(world);
+        int found = 0;
+        switch (type) {
+            case TREE:
+            case PLANTING_SPOT:
+                short[] heights = type == ResourceType.TREE ? trees : plantingSpots;
+                for (int column = 0; column < 256; column++) {
+                    int y = heights[column];
+                    if (y != NONE && y >= bandMinY && y <= bandMaxY) {
+                        out.add(BlockPosUtil.pack((chunkX << 4) + (column & 15), y, (chunkZ << 4) + (column >> 4)));
+                        found++;
+                    }
+                }
+                break;
+            case ORE:
+            case MATURE_CROP:
+                LongBuffer positions = type == ResourceType.ORE ? ores : crops;
+                for (int i = 0; i < positions.size(); i++) {
+                    long position = positions.get(i);
+                    int y = BlockPosUtil.unpackY(position);
+                    if (y >= bandMinY && y <= bandMaxY) {
+                        out.add(position);
+                        found++;
+                    }
+                }
+                break;
+        }
+        return found;
+    }
+
+    /**
+     * Offers this chunk's resources of a type that are within maxDistanceSquared to a nearest set
+     */
+    synchronized void offerNearest(World world, ResourceType type, int x, int y, int z, long maxDistanceSquared,
+                                   NearestSet out) {
+        refresh(world);
+        switch (type) {
+            case TREE:
+            case PLANTING_SPOT:
+                short[] heights = type == ResourceType.TREE ? trees : plantingSpots;
+                for (int column = 0; column < 256; column++) {
+                    int columnY = heights[column];
+                    if (columnY == NONE) {
+                        continue;
+                    }
+                    long dx = (chunkX << 4) + (column & 15) - x;
+                    long dy = columnY - y;
+                    long dz = (chunkZ << 4) + (column >> 4) - z;
+                    long distance = dx * dx + dy * dy + dz * dz;
+                    if (distance <= maxDistanceSquared) {
+                        out.offer(BlockPosUtil.pack((chunkX << 4) + (column & 15), columnY, (chunkZ << 4) + (column >> 4)), distance);
+                    }
+                }
+                break;
+            case ORE:
+            case MATURE_CROP:
+                LongBuffer positions = type == ResourceType.ORE ? ores : crops;
+                for (int i = 0; i < positions.size(); i++) {
+                    long position = positions.get(i);
+                    long dx = BlockPosUtil.unpackX(position) - x;
+                    long dy = BlockPosUtil.unpackY(position) - y;
+                    long dz = BlockPosUtil.unpackZ(position) - z;
+                    long distance = dx * dx + dy * dy + dz * dz;
+                    if (distance <= maxDistanceSquared) {
+                        out.offer(position, distance);
+                    }
+                }
+                break;
+        }
+    }
+
+    synchronized int count(ResourceType type) {
+        switch (type) {
+            case TREE:
+                return countColumns(trees);
+            case PLANTING_SPOT:
+                return countColumns(plantingSpots);
+            case ORE:
+                return ores.size();
+            default:
+                return crops.size();
+        }
+    }
+
+    private static int countColumns(short[] heights) {
+        int count = 0;
+        for (short y : heights) {
+            if (y != NONE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads blocks of one chunk by local coordinates
+     */
+    private interface ColumnReader {
+        Material type(int localX, int y, int localZ);
+
+        BlockData data(int localX, int y, int localZ);
+    }
+}
@@ -0,0 +1,225 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.Ageable;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Mature crops per chunk, kept current by growth events instead of polling farmland
+ * A loaded chunk is read once in the background, and only if its palettes hold a mature
+ * crop at all; after that a crop enters when it grows to its last stage and leaves when
+ * it is broken. Queries read just the chunks around a position and return their crops,
+ * re-checking each one so crops lost without an event drop out on the next query
+ */
+public class CropTracker {
+
+    private final NPCIntegrationPlugin plugin;
+    private final AsyncResourceScanner scanner;
+    private final boolean enabled;
+    private final PaletteFilter matureCrops;
+    private final Map<UUID, Map<Long, LongHashSet>> chunks;
+
+    public CropTracker(NPCIntegrationPlugin plugin, AsyncResourceScanner scanner) {
+        this.plugin = plugin;
+        this.scanner = scanner;
+        this.enabled = plugin.getConfig().getBoolean("performance.crop-tracker", true);
+        this.matureCrops = PaletteFilter.matureCrops();
+        this.chunks = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Starts tracking a loaded chunk, reading its mature crops in the background
+     */
+    public void trackChunk(Chunk chunk) {
+        if (!enabled) {
+            return;
+        }
+
+        World world = chunk.getWorld();
+        LongHashSet crops = new LongHashSet();
+        Map<Long, LongHashSet> worldChunks = chunks.computeIfAbsent(world.getUID(), id -> new ConcurrentHashMap<>());
+        long key = BlockPosUtil.chunkKey(chunk.getX(), chunk.getZ());
+        if (worldChunks.putIfAbsent(key, crops) != null || !matureCrops.mayContain(chunk)) {
+            return;
+        }
+
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight() - 1;
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(false, false, false);
+        scanner.supply(() -> scanMature(snapshot, minY, maxY)).whenComplete((found, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "Could not read crops in chunk " + chunk.getX() + ", " + chunk.getZ(), error);
+                return;
+            }
+            synchronized (crops) {
+                for (int i = 0; i < found.size(); i++) {
+                    crops.add(found.get(i));
+                }
+            }
+        });
+    }
+
+    private static LongBuffer scanMature(ChunkSnapshot snapshot, int minY, int maxY) {
+        LongBuffer found = new LongBuffer();
+        int baseX = snapshot.getX() << 4;
+        int baseZ = snapshot.getZ() << 4;
+        for (int y = minY; y <= maxY; y++) {
+            if (((y - minY) & 15) == 0 && PaletteFilter.isEmptySection(snapshot, minY, y)) {
+                y += 15;
+                continue;
+            }
+            for (int localX = 0; localX < 16; localX++) {
+                for (int localZ = 0; localZ < 16; localZ++) {
+                    if (BlockClassifier.isCrop(snapshot.getBlockType(localX, y, localZ)) &&
+                        isMature(snapshot.getBlockData(localX, y, localZ))) {
+                        found.add(BlockPosUtil.pack(baseX + localX, y, baseZ + localZ));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Forgets an unloaded chunk
+     */
+    public void removeChunk(Chunk chunk) {
+        Map<Long, LongHashSet> worldChunks = chunks.get(chunk.getWorld().getUID());
+        if (worldChunks != null) {
+            worldChunks.remove(BlockPosUtil.chunkKey(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    /**
+     * Records a crop's new state after it grew
+     */
+    public void cropGrew(World world, int x, int y, int z, BlockData newState) {
+        if (BlockClassifier.isCrop(newState.getMaterial()) && isMature(newState)) {
+            LongHashSet crops = get(world, x >> 4, z >> 4);
+            if (crops != null) {
+                synchronized (crops) {
+                    crops.add(BlockPosUtil.pack(x, y, z));
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets a crop that was broken or replaced
+     */
+    public void cropRemoved(World world, int x, int y, int z) {
+        LongHashSet crops = get(world, x >> 4, z >> 4);
+        if (crops != null) {
+            synchronized (crops) {
+                crops.remove(BlockPosUtil.pack(x, y, z));
+            }
+        }
+    }
+
+    /**
+     * Appends the mature crops within the radius of a position whose material is in the table
+     * Chunks loaded before the tracker existed start being tracked on first use.
+     * Must run on the thread that owns the chunks around the position
+     * @param targets flags by Material ordinal, or null for any crop
+     * @return how many were appended
+     */
+    public int collectMature(World world, int x, int y, int z, int radius, boolean[] targets, LongBuffer out) {
+        long maxDistance = (long) radius * radius;
+        int found = 0;
+        for (int chunkX = (x - radius) >> 4; chunkX <= (x + radius) >> 4; chunkX++) {
+            for (int chunkZ = (z - radius) >> 4; chunkZ <= (z + radius) >> 4; chunkZ++) {
+                LongHashSet crops = get(world, chunkX, chunkZ);
+                if (crops == null) {
+                    if (enabled && world.isChunkLoaded(chunkX, chunkZ)) {
+                        trackChunk(world.getChunkAt(chunkX, chunkZ));
+                    }
+                    continue;
+                }
+
+                synchronized (crops) {
+                    LongBuffer stale = null;
+                    for (int slot = 0; slot < crops.capacity(); slot++) {
+                        long crop = crops.slot(slot);
+                        if (crop == ScanKernel.NO_MATCH) {
+                            continue;
+                        }
+
+                        int cropX = BlockPosUtil.unpackX(crop);
+                        int cropY = BlockPosUtil.unpackY(crop);
+                        int cropZ = BlockPosUtil.unpackZ(crop);
+                        long dx = cropX - x;
+                        long dy = cropY - y;
+                        long dz = cropZ - z;
+                        if (dx * dx + dy * dy + dz * dz > maxDistance) {
+                            continue;
+                        }
+
+                        BlockData data = world.getBlockData(cropX, cropY, cropZ);
+                        if (!BlockClassifier.isCrop(data.getMaterial()) || !isMature(data)) {
+                            if (stale == null) {
+                                stale = new LongBuffer();
+                            }
+                            stale.add(crop);
+                        } else if (targets == null || targets[data.getMaterial().ordinal()]) {
+                            out.add(crop);
+                            found++;
+                        }
+                    }
+                    for (int i = 0; stale != null && i < stale.size(); i++) {
+                        crops.remove(stale.get(i));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Builds a material table for {@link #collectMature} from a list of crops
+     */
+    public static boolean[] targets(Material[] materials) {
+        boolean[] table = new boolean[Material.values().length];
+        for (Material material : materials) {
+            table[material.ordinal()] = true;
+        }
+        return table;
+    }
+
+    private LongHashSet get(World world, int chunkX, int chunkZ) {
+        Map<Long, LongHashSet> worldChunks = chunks.get(world.getUID());
+        return worldChunks != null ? worldChunks.get(BlockPosUtil.chunkKey(chunkX, chunkZ)) : null;
+    }
+
+    private static boolean isMature(BlockData data) {
+        return data instanceof Ageable && ((Ageable) data).getAge() >= ((Ageable) data).getMaximumAge();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts every tracked crop (walks every chunk, for diagnostics)
+     */
+    public int getTrackedCount() {
+        int count = 0;
+        for (Map<Long, LongHashSet> worldChunks : chunks.values()) {
+            for (LongHashSet crops : worldChunks.values()) {
+                synchronized (crops) {
+                    count += crops.size();
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package dev.archdemone.npcintegration.scanning;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs, reused between scans
+ * Only grows, so a buffer that has reached its working size stops allocating
+ */
+public class LongBuffer {
+
+    private long[] values;
+    private int size;
+
+    public LongBuffer() {
+        this(64);
+    }
+
+    public LongBuffer(int capacity) {
+        this.values = new long[Math.max(1, capacity)];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Removes the value at an index by moving the last value into its place
+     */
+    public void removeAt(int index) {
+        values[index] = values[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Gets the backing array, valid up to {@link #size()}
+     */
+    public long[] array() {
+        return values;
+    }
+}
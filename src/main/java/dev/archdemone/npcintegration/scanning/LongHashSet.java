@@ -0,0 +1,137 @@
+package dev.archdemone.npcintegration.scanning;
+
+import java.util.Arrays;
+
+/**
+ * Set of packed positions kept in one open-addressed array, no boxing and no entry objects
+ * {@link ScanKernel#NO_MATCH} marks empty slots and can't be stored. Not thread safe
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = ScanKernel.NO_MATCH;
+
+    private long[] slots;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Adds a value
+     * @return true if it wasn't in the set yet
+     */
+    public boolean add(long value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        if (++size * 2 > slots.length) {
+            resize(slots.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value, shifting back the entries that probed past it
+     * @return true if it was in the set
+     */
+    public boolean remove(long value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != value) {
+            if (slots[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slots[next] != EMPTY) {
+            int home = hash(slots[next]) & mask;
+            // Move the entry into the hole unless its home lies between the hole and it
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(slots, EMPTY);
+            size = 0;
+        }
+    }
+
+    /**
+     * Gets how many slots there are, for walking them with {@link #slot(int)}
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Gets the value in a slot, or {@link ScanKernel#NO_MATCH} if the slot is empty
+     */
+    public long slot(int index) {
+        return slots[index];
+    }
+
+    private void resize(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int slot = hash(value) & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = value;
+            }
+        }
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
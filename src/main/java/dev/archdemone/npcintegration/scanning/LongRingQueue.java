@@ -0,0 +1,59 @@
+package dev.archdemone.npcintegration.scanning;
+
+/**
+ * First-in first-out queue of primitive longs in a growable ring, reused between searches
+ */
+public class LongRingQueue {
+
+    private long[] values;
+    private int head;
+    private int size;
+
+    public LongRingQueue() {
+        this(64);
+    }
+
+    public LongRingQueue(int capacity) {
+        this.values = new long[Integer.highestOneBit(Math.max(2, capacity - 1)) << 1];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            grow();
+        }
+        values[(head + size) & (values.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Takes the oldest value, the queue must not be empty
+     */
+    public long poll() {
+        long value = values[head];
+        head = (head + 1) & (values.length - 1);
+        size--;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        long[] grown = new long[values.length << 1];
+        int firstPart = Math.min(size, values.length - head);
+        System.arraycopy(values, head, grown, 0, firstPart);
+        System.arraycopy(values, 0, grown, firstPart, size - firstPart);
+        values = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,79 @@
+package dev.archdemone.npcintegration.scanning;
+
+/**
+ * The k nearest packed positions seen so far, kept sorted by squared distance
+ * Sized for small k; reuse one per caller so queries don't allocate
+ */
+public class NearestSet {
+
+    private long[] positions;
+    private long[] distances;
+    private int limit;
+    private int size;
+
+    public NearestSet(int capacity) {
+        this.positions = new long[Math.max(1, capacity)];
+        this.distances = new long[Math.max(1, capacity)];
+        this.limit = Math.max(1, capacity);
+    }
+
+    /**
+     * Empties the set and sets how many positions it keeps
+     */
+    public void reset(int k) {
+        if (k > positions.length) {
+            positions = new long[k];
+            distances = new long[k];
+        }
+        limit = Math.max(1, k);
+        size = 0;
+    }
+
+    /**
+     * Offers a position, keeping it only if it is among the k nearest so far
+     */
+    public void offer(long position, long distanceSquared) {
+        if (size == limit && distanceSquared >= distances[size - 1]) {
+            return;
+        }
+
+        int index = size < limit ? size++ : size - 1;
+        while (index > 0 && distances[index - 1] > distanceSquared) {
+            positions[index] = positions[index - 1];
+            distances[index] = distances[index - 1];
+            index--;
+        }
+        positions[index] = position;
+        distances[index] = distanceSquared;
+    }
+
+    /**
+     * Gets the squared distance a new position must beat to be kept
+     */
+    public long bound(long maxDistanceSquared) {
+        return size == limit ? Math.min(distances[size - 1], maxDistanceSquared) : maxDistanceSquared;
+    }
+
+    public boolean isFull() {
+        return size == limit;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long get(int index) {
+        return positions[index];
+    }
+
+    public long getDistanceSquared(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Gets the nearest position, or {@link ScanKernel#NO_MATCH} if the set is empty
+     */
+    public long first() {
+        return size > 0 ? positions[0] : ScanKernel.NO_MATCH;
+    }
+}
@@ -0,0 +1,147 @@
+package dev.archdemone.npcintegration.scanning;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.data.Ageable;
+import org.bukkit.block.data.Bisected;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Lightable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Block states a scan is looking for, checked against a chunk's palettes before its blocks are read
+ * Asking a chunk whether its palettes hold a state costs a few lookups per section, far
+ * less than reading its blocks. The Bukkit API answers for the whole chunk rather than per
+ * section, so sections are only skipped individually when they are all air.
+ * Build filters on a server thread, checking them is safe anywhere
+ */
+public final class PaletteFilter {
+
+    private static PaletteFilter matureCrops;
+
+    private final BlockData[] states; // Null when a target has states we can't list, every chunk passes
+
+    private PaletteFilter(BlockData[] states) {
+        this.states = states;
+    }
+
+    /**
+     * Builds a filter for every state of the given materials
+     */
+    public static PaletteFilter of(Material[] materials) {
+        return build(materials, false);
+    }
+
+    /**
+     * Gets the filter for crops at their maximum age
+     */
+    public static synchronized PaletteFilter matureCrops() {
+        if (matureCrops == null) {
+            matureCrops = build(BlockClassifier.materials(BlockClassifier.CROP), true);
+        }
+        return matureCrops;
+    }
+
+    private static PaletteFilter build(Material[] materials, boolean matureOnly) {
+        List<BlockData> states = new ArrayList<>();
+        for (Material material : materials) {
+            if (material.isBlock() && !addStates(material.createBlockData(), matureOnly, states)) {
+                return new PaletteFilter(null);
+            }
+        }
+        return new PaletteFilter(states.toArray(new BlockData[0]));
+    }
+
+    /**
+     * Lists every state of a block whose only properties are age, lit and half
+     * @return false if the block has other properties, so its states can't be listed
+     */
+    private static boolean addStates(BlockData base, boolean matureOnly, List<BlockData> out) {
+        String text = base.getAsString();
+        int open = text.indexOf('[');
+        if (open >= 0) {
+            for (String property : text.substring(open + 1, text.length() - 1).split(",")) {
+                String name = property.substring(0, property.indexOf('='));
+                boolean known = (name.equals("age") && base instanceof Ageable) ||
+                    (name.equals("lit") && base instanceof Lightable) ||
+                    (name.equals("half") && base instanceof Bisected);
+                if (!known) {
+                    return false;
+                }
+            }
+        }
+
+        List<BlockData> states = new ArrayList<>();
+        states.add(base);
+        if (base instanceof Ageable) {
+            int maxAge = ((Ageable) base).getMaximumAge();
+            if (matureOnly) {
+                ((Ageable) base).setAge(maxAge);
+            } else {
+                states = expand(states, maxAge + 1, (state, age) -> ((Ageable) state).setAge(age));
+            }
+        }
+        if (base instanceof Lightable) {
+            states = expand(states, 2, (state, lit) -> ((Lightable) state).setLit(lit == 1));
+        }
+        if (base instanceof Bisected) {
+            Bisected.Half[] halves = Bisected.Half.values();
+            states = expand(states, halves.length, (state, half) -> ((Bisected) state).setHalf(halves[half]));
+        }
+        out.addAll(states);
+        return true;
+    }
+
+    private static List<BlockData> expand(List<BlockData> states, int count, BiConsumer<BlockData, Integer> apply) {
+        List<BlockData> expanded = new ArrayList<>(states.size() * count);
+        for (BlockData state : states) {
+            for (int value = 0; value < count; value++) {
+                BlockData variant = state.clone();
+                apply.accept(variant, value);
+                expanded.add(variant);
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Checks whether a loaded chunk might hold a target, false means it certainly doesn't
+     */
+    public boolean mayContain(Chunk chunk) {
+        if (states == null) {
+            return true;
+        }
+        for (BlockData state : states) {
+            if (chunk.contains(state)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a snapshot might hold a target, false means it certainly doesn't
+     */
+    public boolean mayContain(ChunkSnapshot snapshot) {
+        if (states == null) {
+            return true;
+        }
+        for (BlockData state : states) {
+            if (snapshot.contains(state)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the section holding a height is all air
+     */
+    public static boolean isEmptySection(ChunkSnapshot snapshot, int worldMinY, int y) {
+        return snapshot.isSectionEmpty((y - worldMinY) >> 4);
+    }
+}
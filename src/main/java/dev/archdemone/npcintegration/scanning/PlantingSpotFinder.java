@@ -0,0 +1,119 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.HeightMap;
+import org.bukkit.World;
+
+/**
+ * Hands out planting spots around a planter a batch at a time, found from chunk heightmaps
+ * Each column costs one heightmap lookup and two block reads at the surface. Columns
+ * already handed out or found unsuitable are marked in a bitset and skipped until the
+ * planter wanders more than half the radius away, so a batch is only refilled when it
+ * runs dry. Columns in unloaded chunks go through a {@link ChunkGuard}, which counts them
+ * and may queue the chunk for loading. Not thread safe, keep one per planter and use it
+ * on the thread owning the area
+ */
+public class PlantingSpotFinder {
+
+    private final ChunkGuard guard;
+    private final int batchSize;
+    private final NearestSet batch;
+    private World world;
+    private int centerX;
+    private int centerY;
+    private int centerZ;
+    private int radius;
+    private long[] checked; // One bit per column of the area
+    private int next;
+
+    public PlantingSpotFinder(ChunkGuard guard, int batchSize) {
+        this.guard = guard;
+        this.batchSize = Math.max(1, batchSize);
+        this.batch = new NearestSet(this.batchSize);
+    }
+
+    /**
+     * Takes the nearest unused planting spot, the air block where a sapling would go
+     * @return the packed position, or {@link ScanKernel#NO_MATCH} if the area has none left
+     */
+    public long next(World world, int x, int y, int z, int radius, int below, int above) {
+        if (world != this.world || radius != this.radius || Math.abs(x - centerX) > radius / 2 ||
+            Math.abs(z - centerZ) > radius / 2 || Math.abs(y - centerY) > Math.max(below, above)) {
+            recenter(world, x, y, z, radius);
+        }
+
+        while (true) {
+            while (next < batch.size()) {
+                long spot = batch.get(next++);
+                if (guard.canProbe(world, BlockPosUtil.unpackX(spot), BlockPosUtil.unpackZ(spot)) &&
+                    ScanKernel.PLANTING_SPOT.matches(world, BlockPosUtil.unpackX(spot), BlockPosUtil.unpackY(spot),
+                    BlockPosUtil.unpackZ(spot))) {
+                    return spot;
+                }
+            }
+            if (fill(x, y, z, below, above) == 0) {
+                return ScanKernel.NO_MATCH;
+            }
+        }
+    }
+
+    private void recenter(World world, int x, int y, int z, int radius) {
+        this.world = world;
+        this.centerX = x;
+        this.centerY = y;
+        this.centerZ = z;
+        this.radius = radius;
+        int side = 2 * radius + 1;
+        this.checked = new long[(side * side + 63) >> 6];
+        batch.reset(batchSize);
+        next = 0;
+    }
+
+    /**
+     * Reads the heightmap of every unmarked column and keeps the nearest spots as the next batch
+     */
+    private int fill(int x, int y, int z, int below, int above) {
+        batch.reset(batchSize);
+        next = 0;
+
+        int side = 2 * radius + 1;
+        int bottom = Math.max(centerY - below, world.getMinHeight() + 1);
+        int top = Math.min(centerY + above, world.getMaxHeight() - 1);
+        boolean truncated = false;
+        for (int columnX = centerX - radius; columnX <= centerX + radius; columnX++) {
+            for (int columnZ = centerZ - radius; columnZ <= centerZ + radius; columnZ++) {
+                int column = (columnX - centerX + radius) * side + (columnZ - centerZ + radius);
+                if ((checked[column >> 6] & (1L << column)) != 0) {
+                    continue;
+                }
+                if (!guard.canProbe(world, columnX, columnZ)) {
+                    truncated = true;
+                    continue;
+                }
+
+                int spotY = world.getHighestBlockYAt(columnX, columnZ, HeightMap.MOTION_BLOCKING_NO_LEAVES) + 1;
+                if (spotY < bottom || spotY > top || !ScanKernel.PLANTING_SPOT.matches(world, columnX, spotY, columnZ)) {
+                    checked[column >> 6] |= 1L << column;
+                    continue;
+                }
+
+                long dx = columnX - x;
+                long dy = spotY - y;
+                long dz = columnZ - z;
+                batch.offer(BlockPosUtil.pack(columnX, spotY, columnZ), dx * dx + dy * dy + dz * dz);
+            }
+        }
+
+        if (truncated) {
+            guard.scanTruncated();
+        }
+
+        // Spots in the batch are handed out now, the rest stay for the next fill
+        for (int i = 0; i < batch.size(); i++) {
+            long spot = batch.get(i);
+            int column = (BlockPosUtil.unpackX(spot) - centerX + radius) * side + (BlockPosUtil.unpackZ(spot) - centerZ + radius);
+            checked[column >> 6] |= 1L << column;
+        }
+        return batch.size();
+    }
+}
@@ -0,0 +1,189 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Per-chunk index of logs, ores, mature crops and plantable ground shared by every NPC
+ * A chunk is indexed on a scanner worker when it loads, then kept current from block
+ * events, so a nearby-resource query reads a few arrays instead of thousands of blocks.
+ * Queries and updates must run on the thread that owns the chunk being touched
+ */
+public class ResourceIndex {
+
+    private final NPCIntegrationPlugin plugin;
+    private final AsyncResourceScanner scanner;
+    private final boolean enabled;
+    private final PaletteFilter matureCrops;
+    private final Map<UUID, Map<Long, ChunkIndex>> chunks;
+
+    public ResourceIndex(NPCIntegrationPlugin plugin, AsyncResourceScanner scanner) {
+        this.plugin = plugin;
+        this.scanner = scanner;
+        this.enabled = plugin.getConfig().getBoolean("performance.resource-index", true);
+        this.chunks = new ConcurrentHashMap<>();
+        this.matureCrops = PaletteFilter.matureCrops();
+    }
+
+    /**
+     * Starts indexing a chunk in the background, queries see it once the worker is done
+     */
+    public void indexChunk(Chunk chunk) {
+        if (!enabled) {
+            return;
+        }
+
+        World world = chunk.getWorld();
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight() - 1;
+        ChunkIndex placeholder = new ChunkIndex(chunk.getX(), chunk.getZ(), minY, maxY);
+        Map<Long, ChunkIndex> worldChunks = chunks.computeIfAbsent(world.getUID(), id -> new ConcurrentHashMap<>());
+        long key = BlockPosUtil.chunkKey(chunk.getX(), chunk.getZ());
+        if (worldChunks.putIfAbsent(key, placeholder) != null) {
+            return;
+        }
+
+        ChunkSnapshot snapshot = chunk.getChunkSnapshot(false, false, false);
+        scanner.supply(() -> ChunkIndex.build(snapshot, minY, maxY, matureCrops)).whenComplete((built, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "Could not index chunk " + chunk.getX() + ", " + chunk.getZ(), error);
+                worldChunks.remove(key, placeholder);
+            } else {
+                placeholder.install(built);
+            }
+        });
+    }
+
+    /**
+     * Forgets an unloaded chunk
+     */
+    public void removeChunk(Chunk chunk) {
+        Map<Long, ChunkIndex> worldChunks = chunks.get(chunk.getWorld().getUID());
+        if (worldChunks != null) {
+            worldChunks.remove(BlockPosUtil.chunkKey(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    /**
+     * Marks a changed block's column for re-reading before the next query that touches it
+     */
+    public void blockChanged(World world, int x, int z) {
+        ChunkIndex index = get(world, x >> 4, z >> 4);
+        if (index != null) {
+            index.markDirty(x & 15, z & 15);
+        }
+    }
+
+    /**
+     * Checks whether a chunk's index is built and can answer queries
+     */
+    public boolean isIndexed(World world, int chunkX, int chunkZ) {
+        ChunkIndex index = get(world, chunkX, chunkZ);
+        return index != null && index.isReady();
+    }
+
+    /**
+     * Appends a chunk's resources of a type within a height band
+     * Chunks loaded before the index existed are queued for indexing on first use
+     * @return how many were appended, or -1 if the chunk is not indexed yet
+     */
+    public int collect(World world, int chunkX, int chunkZ, ResourceType type, int minY, int maxY, LongBuffer out) {
+        ChunkIndex index = getOrIndex(world, chunkX, chunkZ);
+        if (index == null || !index.isReady()) {
+            return -1;
+        }
+        return index.collect(world, type, minY, maxY, out);
+    }
+
+    /**
+     * Finds the indexed resource of a type nearest to a position within the radius
+     * @return the packed block position, or {@link ScanKernel#NO_MATCH}
+     */
+    public long findNearest(World world, int x, int y, int z, int radius, ResourceType type) {
+        NearestSet nearest = new NearestSet(1);
+        findNearest(world, x, y, z, radius, type, nearest);
+        return nearest.first();
+    }
+
+    /**
+     * Finds the k nearest indexed resources of a type within the radius, k being the set's size
+     * Chunks are visited in rings outward from the position's chunk, stopping once a ring
+     * lies farther out than the k-th resource found
+     * @return how many were found
+     */
+    public int findNearest(World world, int x, int y, int z, int radius, ResourceType type, NearestSet out) {
+        long maxDistance = (long) radius * radius;
+        int centerChunkX = x >> 4;
+        int centerChunkZ = z >> 4;
+        int lastRing = Math.max(centerChunkX - ((x - radius) >> 4), ((x + radius) >> 4) - centerChunkX);
+        lastRing = Math.max(lastRing, Math.max(centerChunkZ - ((z - radius) >> 4), ((z + radius) >> 4) - centerChunkZ));
+
+        for (int ring = 0; ring <= lastRing; ring++) {
+            // Blocks in this ring are at least (ring - 1) * 16 + 1 blocks away along one axis
+            if (ring > 1) {
+                long gap = (long) (ring - 1) * 16 + 1;
+                if (gap * gap > out.bound(maxDistance)) {
+                    break;
+                }
+            }
+
+            for (int dx = -ring; dx <= ring; dx++) {
+                int step = Math.abs(dx) == ring ? 1 : 2 * ring;
+                for (int dz = -ring; dz <= ring; dz += step) {
+                    ChunkIndex index = getOrIndex(world, centerChunkX + dx, centerChunkZ + dz);
+                    if (index != null && index.isReady()) {
+                        index.offerNearest(world, type, x, y, z, out.bound(maxDistance), out);
+                    }
+                }
+            }
+        }
+        return out.size();
+    }
+
+    private ChunkIndex getOrIndex(World world, int chunkX, int chunkZ) {
+        ChunkIndex index = get(world, chunkX, chunkZ);
+        if (index == null && enabled && world.isChunkLoaded(chunkX, chunkZ)) {
+            indexChunk(world.getChunkAt(chunkX, chunkZ));
+            index = get(world, chunkX, chunkZ);
+        }
+        return index;
+    }
+
+    private ChunkIndex get(World world, int chunkX, int chunkZ) {
+        Map<Long, ChunkIndex> worldChunks = chunks.get(world.getUID());
+        return worldChunks != null ? worldChunks.get(BlockPosUtil.chunkKey(chunkX, chunkZ)) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getIndexedChunkCount() {
+        int count = 0;
+        for (Map<Long, ChunkIndex> worldChunks : chunks.values()) {
+            count += worldChunks.size();
+        }
+        return count;
+    }
+
+    /**
+     * Counts every indexed resource of a type (walks every chunk, for diagnostics)
+     */
+    public int count(ResourceType type) {
+        int count = 0;
+        for (Map<Long, ChunkIndex> worldChunks : chunks.values()) {
+            for (ChunkIndex index : worldChunks.values()) {
+                count += index.count(type);
+            }
+        }
+        return count;
+    }
+}
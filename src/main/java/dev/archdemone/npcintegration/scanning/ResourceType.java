@@ -0,0 +1,11 @@
+package dev.archdemone.npcintegration.scanning;
+
+/**
+ * Resources kept in the {@link ResourceIndex}
+ */
+public enum ResourceType {
+    TREE,          // Lowest log with leaves above it, one per column
+    PLANTING_SPOT, // Air above the highest plantable ground, one per column
+    ORE,           // Every ore block
+    MATURE_CROP    // Every fully grown crop
+}
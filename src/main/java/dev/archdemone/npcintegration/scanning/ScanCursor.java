@@ -0,0 +1,245 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.World;
+
+import java.util.function.Consumer;
+
+/**
+ * Resumable scan of a box around a position, spread over as many ticks as it needs
+ * Each call to {@link #advance(int)} probes at most the given number of blocks and
+ * remembers where it stopped; matches accumulate in a k-nearest set between calls.
+ * Columns in unloaded chunks, in chunks whose palettes can't hold a target, or in chunks
+ * the caller has answered another way, are skipped whole. Must be advanced on the thread
+ * that owns the area
+ */
+public class ScanCursor {
+
+    private static final byte CHUNK_UNCHECKED = 0;
+    private static final byte CHUNK_SCAN = 1;
+    private static final byte CHUNK_SKIP = 2;
+
+    private final World world;
+    private final BlockMatcher matcher;
+    private final int centerX;
+    private final int centerY;
+    private final int centerZ;
+    private final int minX;
+    private final int maxX;
+    private final int minY;
+    private final int maxY;
+    private final int minZ;
+    private final int maxZ;
+    private final long total;
+    private final NearestSet results;
+    private Consumer<ScanCursor> onComplete;
+    private PaletteFilter filter;
+    private ChunkGuard chunkGuard;
+    private LongHashSet coveredChunks;
+    private boolean truncated;
+    private byte[] chunkStates; // Per chunk of the box: unchecked, scan or skip
+    private int x;
+    private int y;
+    private int z;
+    private long probed;
+    private boolean complete;
+    private boolean cancelled;
+
+    public ScanCursor(World world, int centerX, int centerY, int centerZ, int radius, int below, int above,
+                      BlockMatcher matcher, int k) {
+        this.world = world;
+        this.matcher = matcher;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.minX = centerX - radius;
+        this.maxX = centerX + radius;
+        this.minY = Math.max(centerY - below, world.getMinHeight());
+        this.maxY = Math.min(centerY + above, world.getMaxHeight() - 1);
+        this.minZ = centerZ - radius;
+        this.maxZ = centerZ + radius;
+        this.total = (long) (maxX - minX + 1) * (maxZ - minZ + 1) * Math.max(0, maxY - minY + 1);
+        this.results = new NearestSet(k);
+        this.results.reset(k);
+        this.x = minX;
+        this.y = minY;
+        this.z = minZ;
+        this.complete = minY > maxY;
+    }
+
+    /**
+     * Sets the callback run once, on the advancing thread, when the scan finishes
+     */
+    public ScanCursor onComplete(Consumer<ScanCursor> callback) {
+        this.onComplete = callback;
+        return this;
+    }
+
+    /**
+     * Skips chunks whose palettes hold none of the filter's states
+     */
+    public ScanCursor skipChunksWithout(PaletteFilter filter) {
+        this.filter = filter;
+        this.chunkStates = new byte[((maxX >> 4) - (minX >> 4) + 1) * ((maxZ >> 4) - (minZ >> 4) + 1)];
+        return this;
+    }
+
+    /**
+     * Skips chunks whose keys are in the set, such as chunks already read from the resource index
+     * The set is read as the scan advances and must not change until it completes
+     */
+    public ScanCursor skipChunksIn(LongHashSet chunkKeys) {
+        this.coveredChunks = chunkKeys;
+        return this;
+    }
+
+    /**
+     * Reports unloaded chunks the scan had to leave out to a guard, which may queue them for loading
+     */
+    public ScanCursor guardedBy(ChunkGuard chunkGuard) {
+        this.chunkGuard = chunkGuard;
+        return this;
+    }
+
+    /**
+     * Probes up to budget blocks from where the last call stopped
+     * @return true once the whole box has been scanned
+     */
+    public boolean advance(int budget) {
+        if (cancelled) {
+            return false;
+        }
+        if (complete) {
+            finish();
+            return true;
+        }
+
+        // A column left part way last tick may have lost its chunk since
+        if (y > minY && y <= maxY && !isLoaded(x >> 4, z >> 4)) {
+            probed += maxY - y + 1;
+            y = maxY + 1;
+        }
+
+        int remaining = budget;
+        while (remaining > 0) {
+            if (y > maxY) {
+                y = minY;
+                if (++z > maxZ) {
+                    z = minZ;
+                    if (++x > maxX) {
+                        finish();
+                        return true;
+                    }
+                }
+            }
+
+            // Skip a whole column whose chunk is not loaded or holds no target, it costs one probe
+            if (y == minY && !isWorthScanning(x >> 4, z >> 4)) {
+                probed += maxY - minY + 1;
+                y = maxY + 1;
+                remaining--;
+                continue;
+            }
+
+            if (matcher.matches(world, x, y, z)) {
+                long dx = x - centerX;
+                long dy = y - centerY;
+                long dz = z - centerZ;
+                results.offer(BlockPosUtil.pack(x, y, z), dx * dx + dy * dy + dz * dz);
+            }
+            y++;
+            probed++;
+            remaining--;
+        }
+        return false;
+    }
+
+    private boolean isWorthScanning(int chunkX, int chunkZ) {
+        if (coveredChunks != null && coveredChunks.contains(BlockPosUtil.chunkKey(chunkX, chunkZ))) {
+            return false;
+        }
+        if (!isLoaded(chunkX, chunkZ)) {
+            return false;
+        }
+        if (filter == null) {
+            return true;
+        }
+
+        int index = (chunkX - (minX >> 4)) * ((maxZ >> 4) - (minZ >> 4) + 1) + (chunkZ - (minZ >> 4));
+        if (chunkStates[index] == CHUNK_UNCHECKED) {
+            chunkStates[index] = filter.mayContain(world.getChunkAt(chunkX, chunkZ)) ? CHUNK_SCAN : CHUNK_SKIP;
+        }
+        return chunkStates[index] == CHUNK_SCAN;
+    }
+
+    /**
+     * Checks a chunk through the guard when there is one, marking the scan truncated if it is unloaded
+     */
+    private boolean isLoaded(int chunkX, int chunkZ) {
+        boolean loaded = chunkGuard != null ? chunkGuard.canProbe(world, chunkX << 4, chunkZ << 4) :
+            world.isChunkLoaded(chunkX, chunkZ);
+        if (!loaded) {
+            truncated = true;
+        }
+        return loaded;
+    }
+
+    private void finish() {
+        complete = true;
+        probed = total;
+        if (truncated && chunkGuard != null) {
+            chunkGuard.scanTruncated();
+        }
+        Consumer<ScanCursor> callback = onComplete;
+        onComplete = null;
+        if (callback != null) {
+            callback.accept(this);
+        }
+    }
+
+    /**
+     * Stops the scan for good, the completion callback will not run
+     */
+    public void cancel() {
+        cancelled = true;
+        onComplete = null;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Checks whether part of the box was left out because its chunks were not loaded
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the matches found so far, nearest first
+     */
+    public NearestSet getResults() {
+        return results;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public long getProbed() {
+        return probed;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getProgress() {
+        return total == 0 ? 1.0 : (double) probed / total;
+    }
+}
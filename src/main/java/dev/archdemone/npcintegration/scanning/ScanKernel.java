@@ -0,0 +1,94 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+
+/**
+ * Allocation-free block matchers and scans shared by the task runnables
+ * Matchers read materials straight from the world by coordinate, so no Location or Block
+ * is created per probe, and scans report positions packed with {@link BlockPosUtil}.
+ * The snapshot variants read a {@link ChunkSnapshot} and are safe off the main thread;
+ * their height band must already be clamped to the world's height
+ */
+public class ScanKernel {
+
+    public static final long NO_MATCH = Long.MIN_VALUE;
+    public static final int NO_TREE = Integer.MIN_VALUE;
+    public static final int LEAF_SEARCH_HEIGHT = 10; // How far above a trunk's top log to look for its canopy
+
+    public static final BlockMatcher PLANTING_SPOT = (world, x, y, z) -> y > world.getMinHeight() &&
+        BlockClassifier.isAir(world.getType(x, y, z)) && BlockClassifier.isPlantableGround(world.getType(x, y - 1, z));
+
+    /**
+     * Matches blocks of any of the given materials through an ordinal lookup table
+     */
+    public static BlockMatcher matchingAny(Material[] materials) {
+        boolean[] table = new boolean[Material.values().length];
+        for (Material material : materials) {
+            table[material.ordinal()] = true;
+        }
+        return (world, x, y, z) -> table[world.getType(x, y, z).ordinal()];
+    }
+
+    /**
+     * Finds the base of the lowest tree in a snapshot column, reading each block once
+     * Walks down the column remembering the nearest leaves above; a run of logs whose top
+     * is within {@link #LEAF_SEARCH_HEIGHT} of them is a trunk, and its bottom log the base.
+     * Only bases from minY to maxY are reported, but the walk starts high enough above the
+     * band to see the canopy of a trunk that reaches out of it, up to worldMaxY
+     * @return the base's y, or {@link #NO_TREE}
+     */
+    public static int treeBase(ChunkSnapshot snapshot, int localX, int localZ, int minY, int maxY, int worldMaxY) {
+        int top = Math.min(maxY + LEAF_SEARCH_HEIGHT, worldMaxY);
+        if (BlockClassifier.isLog(snapshot.getBlockType(localX, maxY, localZ))) {
+            int trunkTop = maxY;
+            while (trunkTop < worldMaxY && BlockClassifier.isLog(snapshot.getBlockType(localX, trunkTop + 1, localZ))) {
+                trunkTop++;
+            }
+            top = Math.max(top, Math.min(trunkTop + LEAF_SEARCH_HEIGHT, worldMaxY));
+        }
+
+        int base = NO_TREE;
+        int leavesY = top + LEAF_SEARCH_HEIGHT + 1; // Out of reach until real leaves are seen
+        boolean inTrunk = false;
+        boolean canopy = false;
+        for (int y = top; y >= minY; y--) {
+            int flags = BlockClassifier.flags(snapshot.getBlockType(localX, y, localZ));
+            if ((flags & BlockClassifier.LOG) != 0) {
+                if (!inTrunk) {
+                    inTrunk = true;
+                    canopy = leavesY - y <= LEAF_SEARCH_HEIGHT;
+                }
+                if (canopy && y <= maxY) {
+                    base = y;
+                }
+            } else {
+                inTrunk = false;
+                if ((flags & BlockClassifier.LEAVES) != 0) {
+                    leavesY = y;
+                }
+            }
+        }
+        return base;
+    }
+
+    /**
+     * Finds the lowest tree base in each column of a snapshot, one packed position per trunk
+     */
+    public static int scanTrunks(ChunkSnapshot snapshot, int minY, int maxY, int worldMaxY, LongBuffer out) {
+        int baseX = snapshot.getX() << 4;
+        int baseZ = snapshot.getZ() << 4;
+        int found = 0;
+        for (int localX = 0; localX < 16; localX++) {
+            for (int localZ = 0; localZ < 16; localZ++) {
+                int y = treeBase(snapshot, localX, localZ, minY, maxY, worldMaxY);
+                if (y != NO_TREE) {
+                    out.add(BlockPosUtil.pack(baseX + localX, y, baseZ + localZ));
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,29 @@
+package dev.archdemone.npcintegration.scanning;
+
+import org.bukkit.ChunkSnapshot;
+
+/**
+ * What an asynchronous resource scan looks for in each chunk snapshot
+ */
+public enum ScanQuery {
+    TREES {
+        @Override
+        int scan(ChunkSnapshot snapshot, int worldMinY, int worldMaxY, int minY, int maxY, LongBuffer out) {
+            return ScanKernel.scanTrunks(snapshot, minY, maxY, worldMaxY, out);
+        }
+    };
+
+    /**
+     * Appends the packed targets found in one snapshot and returns how many there were
+     * Targets are only reported within minY to maxY, though a query may read above the
+     * band up to the world's top block, worldMaxY, to confirm them
+     */
+    abstract int scan(ChunkSnapshot snapshot, int worldMinY, int worldMaxY, int minY, int maxY, LongBuffer out);
+
+    /**
+     * Gets the states a chunk must hold to be worth scanning, or null to scan every chunk
+     */
+    PaletteFilter filter() {
+        return null;
+    }
+}
@@ -0,0 +1,97 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+
+/**
+ * Targets found by an asynchronous scan, grouped by the chunk they were found in
+ * Chunks are listed even when empty so callers can record that they were scanned
+ */
+public class ScanResult {
+
+    private final long[] chunkKeys;
+    private final int[] offsets; // Start of each chunk's targets, with a final end entry
+    private final long[] targets;
+
+    ScanResult(long[] chunkKeys, int[] offsets, long[] targets) {
+        this.chunkKeys = chunkKeys;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Concatenates two results, left chunks first
+     */
+    static ScanResult merge(ScanResult left, ScanResult right) {
+        int chunks = left.chunkKeys.length + right.chunkKeys.length;
+        long[] chunkKeys = new long[chunks];
+        int[] offsets = new int[chunks + 1];
+        long[] targets = new long[left.targets.length + right.targets.length];
+
+        System.arraycopy(left.chunkKeys, 0, chunkKeys, 0, left.chunkKeys.length);
+        System.arraycopy(right.chunkKeys, 0, chunkKeys, left.chunkKeys.length, right.chunkKeys.length);
+        System.arraycopy(left.offsets, 0, offsets, 0, left.chunkKeys.length);
+        for (int i = 0; i <= right.chunkKeys.length; i++) {
+            offsets[left.chunkKeys.length + i] = right.offsets[i] + left.targets.length;
+        }
+        System.arraycopy(left.targets, 0, targets, 0, left.targets.length);
+        System.arraycopy(right.targets, 0, targets, left.targets.length, right.targets.length);
+        return new ScanResult(chunkKeys, offsets, targets);
+    }
+
+    public int getChunkCount() {
+        return chunkKeys.length;
+    }
+
+    public int getChunkX(int chunk) {
+        return BlockPosUtil.chunkKeyX(chunkKeys[chunk]);
+    }
+
+    public int getChunkZ(int chunk) {
+        return BlockPosUtil.chunkKeyZ(chunkKeys[chunk]);
+    }
+
+    /**
+     * Gets the index of a chunk's first target in {@link #getTargets()}
+     */
+    public int getChunkStart(int chunk) {
+        return offsets[chunk];
+    }
+
+    /**
+     * Gets the index just past a chunk's last target in {@link #getTargets()}
+     */
+    public int getChunkEnd(int chunk) {
+        return offsets[chunk + 1];
+    }
+
+    /**
+     * Gets every packed target, chunk by chunk
+     */
+    public long[] getTargets() {
+        return targets;
+    }
+
+    public int getTargetCount() {
+        return targets.length;
+    }
+
+    /**
+     * Finds the target nearest to a position within the radius
+     * @return the packed block position, or {@link ScanKernel#NO_MATCH}
+     */
+    public long nearest(int x, int y, int z, int radius) {
+        long best = ScanKernel.NO_MATCH;
+        long bestDistance = (long) radius * radius;
+        for (long target : targets) {
+            long dx = BlockPosUtil.unpackX(target) - x;
+            long dy = BlockPosUtil.unpackY(target) - y;
+            long dz = BlockPosUtil.unpackZ(target) - z;
+            long distance = dx * dx + dy * dy + dz * dz;
+            if (distance <= bestDistance) {
+                best = target;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
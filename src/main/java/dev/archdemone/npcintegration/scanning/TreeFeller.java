@@ -0,0 +1,240 @@
+package dev.archdemone.npcintegration.scanning;
+
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.type.Leaves;
+
+/**
+ * Finds every block of a tree from its base: the connected logs, then the natural leaves around them
+ * A breadth-first search over packed positions with a primitive queue and visited sets,
+ * so felling a tree allocates nothing once the buffers have grown. Logs are followed
+ * through edges and corners to catch diagonal branches and 2x2 trunks, never below the
+ * base; leaves are followed face to face up to the distance at which they would decay,
+ * but only while they are nearer to a felled log than to any other, so a canopy grown
+ * into a neighbour's keeps the leaves that still belong to the standing tree.
+ * Logs are only followed within a horizontal radius of the base and up to a hard cap;
+ * a search that runs into either has most likely reached logs a player built with, so
+ * it is reported as truncated and the tree should be left standing. So is a tree whose
+ * logs reach into an unloaded chunk, which goes through a {@link ChunkGuard} like every
+ * other probe; unloaded leaves are just left. Not thread safe, keep one per woodcutter
+ */
+public class TreeFeller {
+
+    private static final int LEAF_REACH = 6; // Natural leaves further than this from a log decay anyway
+    private static final int[][] FACES = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+
+    private final ChunkGuard guard;
+    private final int maxLogs;
+    private final int maxRadius;
+    private final int maxLeaves;
+    private final LongRingQueue queue;
+    private final LongHashSet felled;
+    private final LongHashSet rejected;
+    private final LongBuffer logs;
+    private final LongBuffer leaves;
+    private boolean truncated;
+
+    public TreeFeller(ChunkGuard guard, int maxLogs, int maxRadius, int maxLeaves) {
+        this.guard = guard;
+        this.maxLogs = Math.max(1, maxLogs);
+        this.maxRadius = Math.max(1, maxRadius);
+        this.maxLeaves = Math.max(0, maxLeaves);
+        this.queue = new LongRingQueue();
+        this.felled = new LongHashSet(256);
+        this.rejected = new LongHashSet(256);
+        this.logs = new LongBuffer();
+        this.leaves = new LongBuffer();
+    }
+
+    /**
+     * Collects the tree standing on a base log, replacing the previous result
+     * Must run on the thread that owns the area
+     * @return how many blocks were found, 0 if the base is not a loaded log
+     */
+    public int fell(World world, int baseX, int baseY, int baseZ) {
+        queue.clear();
+        felled.clear();
+        rejected.clear();
+        logs.clear();
+        leaves.clear();
+        truncated = false;
+
+        if (!guard.canProbe(world, baseX, baseZ) || !BlockClassifier.isLog(world.getType(baseX, baseY, baseZ))) {
+            return 0;
+        }
+
+        long base = BlockPosUtil.pack(baseX, baseY, baseZ);
+        felled.add(base);
+        logs.add(base);
+        queue.add(base);
+        collectLogs(world, baseX, baseY, baseZ);
+        if (truncated) {
+            guard.scanTruncated();
+        }
+
+        if (maxLeaves > 0 && !truncated) {
+            for (int i = 0; i < logs.size(); i++) {
+                queue.add(logs.get(i));
+            }
+            collectLeaves(world);
+        }
+        queue.clear();
+        return logs.size() + leaves.size();
+    }
+
+    private void collectLogs(World world, int baseX, int baseY, int baseZ) {
+        int top = world.getMaxHeight() - 1;
+        while (!truncated && !queue.isEmpty()) {
+            long position = queue.poll();
+            int x = BlockPosUtil.unpackX(position);
+            int y = BlockPosUtil.unpackY(position);
+            int z = BlockPosUtil.unpackZ(position);
+
+            for (int dy = -1; dy <= 1; dy++) {
+                int neighbourY = y + dy;
+                if (neighbourY < baseY || neighbourY > top) {
+                    continue;
+                }
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        if ((dx | dy | dz) == 0) {
+                            continue;
+                        }
+                        long neighbour = BlockPosUtil.pack(x + dx, neighbourY, z + dz);
+                        if (!isLog(world, x + dx, neighbourY, z + dz, neighbour)) {
+                            continue;
+                        }
+                        if (logs.size() >= maxLogs || Math.abs(x + dx - baseX) > maxRadius ||
+                            Math.abs(z + dz - baseZ) > maxRadius) {
+                            truncated = true;
+                            return;
+                        }
+                        felled.add(neighbour);
+                        logs.add(neighbour);
+                        queue.add(neighbour);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a neighbour is a log not yet seen, marking the search truncated if it can't be read
+     */
+    private boolean isLog(World world, int x, int y, int z, long position) {
+        if (felled.contains(position) || rejected.contains(position)) {
+            return false;
+        }
+        if (!guard.canProbe(world, x, z)) {
+            truncated = true;
+            rejected.add(position);
+            return false;
+        }
+        if (!BlockClassifier.isLog(world.getType(x, y, z))) {
+            rejected.add(position);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Spreads from every log through natural leaves one step per level, up to {@link #LEAF_REACH}
+     * A leaf at depth d has d as its distance to a felled log; one whose own distance, the
+     * game's count of steps to the nearest log, is smaller, or that touches a log left
+     * standing, is held up by another tree and stays
+     */
+    private void collectLeaves(World world) {
+        for (int depth = 1; depth <= LEAF_REACH && !queue.isEmpty(); depth++) {
+            for (int remaining = queue.size(); remaining > 0; remaining--) {
+                long position = queue.poll();
+                int x = BlockPosUtil.unpackX(position);
+                int y = BlockPosUtil.unpackY(position);
+                int z = BlockPosUtil.unpackZ(position);
+
+                for (int[] face : FACES) {
+                    int neighbourX = x + face[0];
+                    int neighbourY = y + face[1];
+                    int neighbourZ = z + face[2];
+                    long neighbour = BlockPosUtil.pack(neighbourX, neighbourY, neighbourZ);
+                    if (felled.contains(neighbour) || rejected.contains(neighbour)) {
+                        continue;
+                    }
+                    if (!guard.canProbe(world, neighbourX, neighbourZ) ||
+                        !isOwnLeaves(world, neighbourX, neighbourY, neighbourZ, depth)) {
+                        rejected.add(neighbour);
+                        continue;
+                    }
+                    if (leaves.size() >= maxLeaves) {
+                        return; // Whatever is left decays on its own
+                    }
+                    felled.add(neighbour);
+                    leaves.add(neighbour);
+                    queue.add(neighbour);
+                }
+            }
+        }
+    }
+
+    private boolean isOwnLeaves(World world, int x, int y, int z, int depth) {
+        if (y < world.getMinHeight() || y >= world.getMaxHeight() || !BlockClassifier.isLeaves(world.getType(x, y, z))) {
+            return false;
+        }
+        BlockData data = world.getBlockData(x, y, z);
+        if (data instanceof Leaves) {
+            Leaves leaves = (Leaves) data;
+            // Leaves placed by players are persistent and belong to a build
+            if (leaves.isPersistent() || leaves.getDistance() < depth) {
+                return false;
+            }
+        }
+        return !touchesStandingLog(world, x, y, z);
+    }
+
+    private boolean touchesStandingLog(World world, int x, int y, int z) {
+        for (int[] face : FACES) {
+            int neighbourX = x + face[0];
+            int neighbourY = y + face[1];
+            int neighbourZ = z + face[2];
+            if (!felled.contains(BlockPosUtil.pack(neighbourX, neighbourY, neighbourZ)) &&
+                world.isChunkLoaded(neighbourX >> 4, neighbourZ >> 4) &&
+                BlockClassifier.isLog(world.getType(neighbourX, neighbourY, neighbourZ))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a felled block touches a block that stays, only those need physics when removed
+     */
+    public boolean isOnSurface(long position) {
+        int x = BlockPosUtil.unpackX(position);
+        int y = BlockPosUtil.unpackY(position);
+        int z = BlockPosUtil.unpackZ(position);
+        for (int[] face : FACES) {
+            if (!felled.contains(BlockPosUtil.pack(x + face[0], y + face[1], z + face[2]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the logs found, base first
+     */
+    public LongBuffer getLogs() {
+        return logs;
+    }
+
+    public LongBuffer getLeaves() {
+        return leaves;
+    }
+
+    /**
+     * Checks whether the log search hit its cap, its radius or an unloaded chunk, in which case nothing should be felled
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,241 @@
+package dev.archdemone.npcintegration.tasks;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.scanning.CropTracker;
+import dev.archdemone.npcintegration.scanning.ResourceIndex;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block changes requested by NPC tasks, applied a bounded number per tick
+ * Changes are grouped per chunk and applied chunk by chunk, in the order the chunks
+ * were first queued. Each change can skip physics, which saves the neighbour updates
+ * for blocks inside a structure being taken apart. Drops of a chunk's breaks are merged
+ * into full stacks and spilled once at the first block broken in it, rather than one
+ * item entity per block. Changes made here fire no block events, so the resource index
+ * and crop tracker are told directly. Owned by one {@link TaskTicker} and only touched
+ * on its thread
+ */
+public class BlockMutationQueue {
+
+    private final int maxChangesPerTick;
+    private final ResourceIndex resourceIndex;
+    private final CropTracker cropTracker;
+    private final Map<World, Map<Long, ChunkBatch>> batches;
+    private final ArrayDeque<ChunkBatch> order;
+    private int queued;
+
+    // Metrics
+    private long applied;
+    private long skipped;
+    private long stacksDropped;
+    private long itemsDropped;
+    private int lastTickApplied;
+    private double averageApplied;
+
+    public BlockMutationQueue(NPCIntegrationPlugin plugin) {
+        this.maxChangesPerTick = plugin.getConfig().getInt("performance.block-changes-per-tick", 256);
+        this.resourceIndex = plugin.getResourceIndex();
+        this.cropTracker = plugin.getCropTracker();
+        this.batches = new HashMap<>();
+        this.order = new ArrayDeque<>();
+    }
+
+    /**
+     * Queues a block to be broken, its drops going to the chunk's merged stacks
+     */
+    public void breakBlock(World world, int x, int y, int z, boolean applyPhysics) {
+        batch(world, x >> 4, z >> 4).add(BlockPosUtil.pack(x, y, z), null, applyPhysics);
+    }
+
+    /**
+     * Queues a block to be replaced without dropping anything
+     */
+    public void setBlock(World world, int x, int y, int z, BlockData data, boolean applyPhysics) {
+        batch(world, x >> 4, z >> 4).add(BlockPosUtil.pack(x, y, z), data, applyPhysics);
+    }
+
+    private ChunkBatch batch(World world, int chunkX, int chunkZ) {
+        queued++;
+        Map<Long, ChunkBatch> chunks = batches.computeIfAbsent(world, key -> new HashMap<>());
+        long key = BlockPosUtil.chunkKey(chunkX, chunkZ);
+        ChunkBatch batch = chunks.get(key);
+        if (batch == null) {
+            batch = new ChunkBatch(world, chunkX, chunkZ);
+            chunks.put(key, batch);
+            order.add(batch);
+        }
+        return batch;
+    }
+
+    /**
+     * Applies queued changes until the per-tick cap or the tick budget is reached
+     * At least one change goes through every tick so a busy shard still makes progress.
+     * A batch whose chunk has unloaded has its remaining changes dropped; loading it to
+     * finish would be the very stall this queue exists to avoid. Drops already collected
+     * from its applied breaks are still spilled, they go to the chunk's next load
+     */
+    public void drain(TickBudget budget) {
+        int changes = 0;
+        ChunkBatch batch;
+        while ((batch = order.peek()) != null) {
+            if (!batch.world.isChunkLoaded(batch.chunkX, batch.chunkZ)) {
+                skipped += batch.size - batch.next;
+                queued -= batch.size - batch.next;
+                batch.spillDrops();
+                finish(batch);
+                continue;
+            }
+
+            while (batch.next < batch.size) {
+                if (changes > 0 && ((maxChangesPerTick > 0 && changes >= maxChangesPerTick) || budget.isExhausted())) {
+                    record(changes);
+                    return;
+                }
+                apply(batch, batch.next++);
+                changes++;
+                queued--;
+            }
+            batch.spillDrops();
+            finish(batch);
+        }
+        record(changes);
+    }
+
+    private void apply(ChunkBatch batch, int index) {
+        long position = batch.positions[index];
+        int x = BlockPosUtil.unpackX(position);
+        int y = BlockPosUtil.unpackY(position);
+        int z = BlockPosUtil.unpackZ(position);
+        Block block = batch.world.getBlockAt(x, y, z);
+        BlockData data = batch.data[index];
+        if (data != null) {
+            block.setBlockData(data, batch.physics[index]);
+        } else if (!block.getType().isAir()) {
+            if (batch.dropAt == null) {
+                batch.dropAt = block.getLocation().add(0.5, 0.5, 0.5);
+            }
+            for (ItemStack drop : block.getDrops()) {
+                batch.collect(drop);
+            }
+            block.setType(Material.AIR, batch.physics[index]);
+        }
+        resourceIndex.blockChanged(batch.world, x, z);
+        cropTracker.cropRemoved(batch.world, x, y, z);
+        applied++;
+    }
+
+    private void finish(ChunkBatch batch) {
+        order.poll();
+        Map<Long, ChunkBatch> chunks = batches.get(batch.world);
+        if (chunks != null) {
+            chunks.remove(BlockPosUtil.chunkKey(batch.chunkX, batch.chunkZ));
+            if (chunks.isEmpty()) {
+                batches.remove(batch.world);
+            }
+        }
+    }
+
+    private void record(int changes) {
+        lastTickApplied = changes;
+        averageApplied = averageApplied * 0.95 + changes * 0.05;
+    }
+
+    /**
+     * Forgets every queued change, used when the shard stops
+     */
+    public void clear() {
+        batches.clear();
+        order.clear();
+        queued = 0;
+    }
+
+    // Getters
+    public int getQueued() { return queued; }
+    public long getApplied() { return applied; }
+    public long getSkipped() { return skipped; }
+    public long getStacksDropped() { return stacksDropped; }
+    public long getItemsDropped() { return itemsDropped; }
+    public int getLastTickApplied() { return lastTickApplied; }
+    public double getAverageApplied() { return averageApplied; }
+
+    /**
+     * Queued changes to one chunk, in the order they were requested
+     */
+    private final class ChunkBatch {
+        private final World world;
+        private final int chunkX;
+        private final int chunkZ;
+        private long[] positions = new long[8];
+        private BlockData[] data = new BlockData[8]; // Null entries are breaks
+        private boolean[] physics = new boolean[8];
+        private int size;
+        private int next;
+        private Map<Material, Integer> drops;
+        private Location dropAt;
+
+        private ChunkBatch(World world, int chunkX, int chunkZ) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        private void add(long position, BlockData blockData, boolean applyPhysics) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                data = Arrays.copyOf(data, size * 2);
+                physics = Arrays.copyOf(physics, size * 2);
+            }
+            positions[size] = position;
+            data[size] = blockData;
+            physics[size] = applyPhysics;
+            size++;
+        }
+
+        private void collect(ItemStack drop) {
+            if (drop.hasItemMeta()) {
+                // Named or enchanted drops can't be merged by material
+                world.dropItemNaturally(dropAt, drop);
+                stacksDropped++;
+                itemsDropped += drop.getAmount();
+                return;
+            }
+            if (drops == null) {
+                drops = new EnumMap<>(Material.class);
+            }
+            drops.merge(drop.getType(), drop.getAmount(), Integer::sum);
+        }
+
+        /**
+         * Drops the merged items as full stacks at the first block broken in this chunk
+         */
+        private void spillDrops() {
+            if (drops == null) {
+                return;
+            }
+            for (Map.Entry<Material, Integer> entry : drops.entrySet()) {
+                Material material = entry.getKey();
+                int remaining = entry.getValue();
+                itemsDropped += remaining;
+                while (remaining > 0) {
+                    int amount = Math.min(remaining, material.getMaxStackSize());
+                    world.dropItemNaturally(dropAt, new ItemStack(material, amount));
+                    stacksDropped++;
+                    remaining -= amount;
+                }
+            }
+            drops = null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.archdemone.npcintegration.tasks;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Classic single main thread execution through the Bukkit scheduler
+ */
+public class BukkitExecutionScheduler implements ExecutionScheduler {
+
+    private final NPCIntegrationPlugin plugin;
+
+    public BukkitExecutionScheduler(NPCIntegrationPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public Handle runEveryTick(World world, int chunkX, int chunkZ, Runnable action) {
+        return runGlobalRepeating(1L, 1L, action);
+    }
+
+    @Override
+    public Handle runGlobalRepeating(long delay, long period, Runnable action) {
+        BukkitTask task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                action.run();
+            }
+        }.runTaskTimer(plugin, delay, period);
+        return task::cancel;
+    }
+
+    @Override
+    public Handle runForEntity(Entity entity, long delay, long period, Runnable action) {
+        return runGlobalRepeating(delay, period, action);
+    }
+
+    @Override
+    public void runLaterForEntity(Entity entity, long delay, Runnable action) {
+        plugin.getServer().getScheduler().runTaskLater(plugin, action, delay);
+    }
+
+    @Override
+    public void execute(World world, int chunkX, int chunkZ, Runnable action) {
+        if (plugin.getServer().isPrimaryThread()) {
+            action.run();
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, action);
+        }
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+        return plugin.getServer().isPrimaryThread();
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package dev.archdemone.npcintegration.tasks;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free multi-producer, single-consumer inbox for task engine commands
+ * Any thread (async chat in particular) may submit; only the main thread drains,
+ * once per tick, so task queues and executors are never touched concurrently
+ */
+public class CommandInbox {
+
+    private final ConcurrentLinkedQueue<Runnable> commands;
+    private final AtomicInteger pending;
+    private long drained;
+
+    public CommandInbox() {
+        this.commands = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+    }
+
+    /**
+     * Queues a command to run on the main thread, never blocks
+     */
+    public void submit(Runnable command) {
+        commands.offer(command);
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Takes the next command, main thread only
+     * @return the command, or null if the inbox is empty
+     */
+    public Runnable poll() {
+        Runnable command = commands.poll();
+        if (command != null) {
+            pending.decrementAndGet();
+            drained++;
+        }
+        return command;
+    }
+
+    /**
+     * Drops every queued command, main thread only
+     */
+    public void clear() {
+        while (poll() != null) {
+            // Discard
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public long getDrainedCount() {
+        return drained;
+    }
+}
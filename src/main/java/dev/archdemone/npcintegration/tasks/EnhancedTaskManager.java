@@ -13,22 +13,29 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Enhanced task manager with support for multiple tasks, tool requirements, and advanced features
  */
 public class EnhancedTaskManager {
     
+    private static final long START_DELAY = 20L; // Ticks before a newly started task runs
+    private static final int BULK_STARTS_PER_TICK = 8; // Spreads bulk starts over several ticks
+    
     private final NPCIntegrationPlugin plugin;
     private final NPCManager npcManager;
     private final Map<Integer, TaskQueue> npcTaskQueues;
-    private final Map<Integer, BukkitRunnable> activeTaskRunnables;
+    private final Map<Integer, TaskExecutor> activeTaskRunnables;
     private final Map<Integer, NPCToolInventory> npcInventories;
     private final TaskPersistence persistence;
+    private final TaskEngine taskEngine;
+    private final TreeTargetPool treeTargetPool;
     
     public EnhancedTaskManager(NPCIntegrationPlugin plugin) {
         this.plugin = plugin;
@@ -37,11 +44,56 @@ public class EnhancedTaskManager {
         this.activeTaskRunnables = new ConcurrentHashMap<>();
         this.npcInventories = new ConcurrentHashMap<>();
         this.persistence = new TaskPersistence(plugin);
+        this.taskEngine = new TaskEngine(plugin);
+        this.treeTargetPool = new TreeTargetPool();
         
         // Load saved data
         loadSavedData();
     }
     
+    /**
+     * Assigns a task from any thread, applied on the thread that owns the NPC
+     */
+    public void submitAssignTask(NPCManager.NPCDetails details, String taskType, Player player, TaskConfiguration config) {
+        submit(details, () -> assignTask(details, taskType, player, config));
+    }
+    
+    /**
+     * Switches task from any thread, applied on the thread that owns the NPC
+     */
+    public void submitSwitchTask(NPCManager.NPCDetails details, String taskType, Player player, TaskConfiguration config) {
+        submit(details, () -> switchTask(details, taskType, player, config));
+    }
+    
+    /**
+     * Clears all tasks from any thread, applied on the thread that owns the NPC
+     */
+    public void submitClearAllTasks(NPCManager.NPCDetails details) {
+        submit(details, () -> clearAllTasks(details));
+    }
+    
+    /**
+     * Gives a tool from any thread, applied on the thread that owns the NPC
+     */
+    public void submitGiveTool(NPCManager.NPCDetails details, Player player, Material toolType) {
+        submit(details, () -> giveToolToNPC(details, player, toolType));
+    }
+    
+    /**
+     * Runs a command on the thread that owns the NPC, right away if that is the current thread
+     */
+    private void submit(NPCManager.NPCDetails details, Runnable command) {
+        taskEngine.execute(locationOf(details), command);
+    }
+    
+    /**
+     * Gets where an NPC is, for routing to the thread that owns it
+     */
+    private static Location locationOf(NPCManager.NPCDetails details) {
+        NPC npc = details.getCitizensNPC();
+        return npc != null && npc.isSpawned() ? npc.getEntity().getLocation() : details.getLocation();
+    }
+    
     /**
      * Assigns a new task to an NPC
      */
@@ -68,11 +120,18 @@ public class EnhancedTaskManager {
         }
         
         // Add task to queue
-        queue.addTask(task);
+        if (!queue.addTask(task)) {
+            MessageUtil.sendError(player, "&6[" + details.getName() + "] &cMy task list is full!");
+            return false;
+        }
         
         // If no active task, start the queue
         if (!queue.hasActiveTask()) {
             startNextTask(details, queue);
+        } else if (queue.shouldPreempt()) {
+            preemptCurrentTask(details, queue);
+            startNextTask(details, queue);
+            MessageUtil.sendInfo(player, "&6[" + details.getName() + "] &eThat's more urgent, I'll pick my current work back up afterwards!");
         } else {
             MessageUtil.sendInfo(player, "&6[" + details.getName() + "] &eI've added that to my task list. I'll get to it after my current work!");
         }
@@ -80,6 +139,96 @@ public class EnhancedTaskManager {
         return true;
     }
     
+    /**
+     * Assigns the same task to many NPCs at once, from any thread
+     * Each NPC is handled on the thread that owns it, where the filter is checked
+     * against its current location. Tools are checked without asking each NPC's
+     * assigner, starts are spread over several ticks and every touched queue is saved
+     * with one write. The result is handed over once the last NPC has been handled
+     */
+    public void submitTaskBulk(Collection<NPCManager.NPCDetails> targets, Predicate<Location> filter, String taskType,
+                               Player player, TaskConfiguration config, Consumer<BulkAssignResult> onComplete) {
+        BulkAssignResult result = new BulkAssignResult(targets.size());
+        if (createTask(taskType, player, config) == null) {
+            MessageUtil.sendError(player, "Unknown task type: " + taskType);
+            result.unknownTaskType = true;
+            onComplete.accept(result);
+            return;
+        }
+        if (targets.isEmpty()) {
+            onComplete.accept(result);
+            return;
+        }
+        
+        Map<Integer, TaskQueue> touched = new ConcurrentHashMap<>();
+        Runnable handled = () -> {
+            if (result.remaining.decrementAndGet() == 0) {
+                if (!touched.isEmpty()) {
+                    persistence.saveTaskQueues(touched);
+                }
+                onComplete.accept(result);
+            }
+        };
+        for (NPCManager.NPCDetails details : targets) {
+            Location location = locationOf(details);
+            if (location == null) {
+                result.unavailable.incrementAndGet();
+                handled.run();
+                continue;
+            }
+            taskEngine.execute(location, () -> {
+                try {
+                    assignBulkTarget(details, filter, taskType, player, config, result, touched);
+                } finally {
+                    handled.run();
+                }
+            });
+        }
+    }
+    
+    /**
+     * Assigns a bulk task to one NPC, on the thread that owns it
+     */
+    private void assignBulkTarget(NPCManager.NPCDetails details, Predicate<Location> filter, String taskType, Player player,
+                                  TaskConfiguration config, BulkAssignResult result, Map<Integer, TaskQueue> touched) {
+        NPC npc = details.getCitizensNPC();
+        if (npc == null || !npc.isSpawned()) {
+            result.unavailable.incrementAndGet();
+            return;
+        }
+        if (!filter.test(npc.getEntity().getLocation())) {
+            result.excluded.incrementAndGet();
+            return;
+        }
+        
+        int npcId = details.getCitizensId();
+        Material requiredTool = config.getRequiredTool();
+        if (requiredTool != null) {
+            NPCToolInventory inventory = npcInventories.get(npcId);
+            if (inventory == null || !inventory.hasTool(requiredTool)) {
+                result.missingTool.incrementAndGet();
+                return;
+            }
+        }
+        
+        TaskQueue queue = npcTaskQueues.computeIfAbsent(npcId, k -> new TaskQueue());
+        if (!queue.addTask(createTask(taskType, player, config.copy()))) {
+            result.queueFull.incrementAndGet();
+            return;
+        }
+        touched.put(npcId, queue);
+        
+        if (!queue.hasActiveTask() || queue.shouldPreempt()) {
+            if (queue.hasActiveTask()) {
+                preemptCurrentTask(details, queue);
+            }
+            long delay = START_DELAY + result.started.getAndIncrement() / BULK_STARTS_PER_TICK;
+            startTask(details, queue, queue.getNextTask(), delay, false);
+        } else {
+            result.queued.incrementAndGet();
+        }
+    }
+    
     /**
      * Interrupts current task and switches to a new one
      */
@@ -97,9 +246,6 @@ public class EnhancedTaskManager {
             return false;
         }
         
-        // Stop current task
-        stopCurrentTask(details);
-        
         // Create new task
         NPCTask newTask = createTask(newTaskType, player, config);
         if (newTask == null) {
@@ -112,12 +258,9 @@ public class EnhancedTaskManager {
             return false;
         }
         
-        // Clear queue and add new task
-        queue.clear();
-        queue.addTask(newTask);
-        
-        // Start new task
-        startNextTask(details, queue);
+        // Push the current task back so its progress isn't lost, then start the new one
+        preemptCurrentTask(details, queue);
+        startTask(details, queue, newTask);
         
         MessageUtil.sendInfo(player, "&6[" + details.getName() + "] &eI've switched to the new task right away!");
         
@@ -233,18 +376,46 @@ public class EnhancedTaskManager {
             return;
         }
         
+        startTask(details, queue, task);
+    }
+    
+    /**
+     * Starts a task right away, replacing whatever the NPC is doing
+     */
+    private void startTask(NPCManager.NPCDetails details, TaskQueue queue, NPCTask task) {
+        startTask(details, queue, task, START_DELAY, true);
+    }
+    
+    /**
+     * Starts a task after the given delay, optionally telling the assigner
+     */
+    private void startTask(NPCManager.NPCDetails details, TaskQueue queue, NPCTask task, long delay, boolean announce) {
         // Stop any existing task
         stopCurrentTask(details);
         
         // Start new task
-        BukkitRunnable runnable = createTaskRunnable(details, task);
+        TaskExecutor runnable = createTaskRunnable(details, task);
         if (runnable != null) {
-            runnable.runTaskTimer(plugin, 20L, 1L);
+            taskEngine.schedule(runnable, delay);
             activeTaskRunnables.put(details.getCitizensId(), runnable);
             queue.setCurrentTask(task);
             
-            MessageUtil.sendInfo(null, "&6[" + details.getName() + "] &eStarted " + task.getType() + " task!");
+            Player assignedBy = task.getAssignedBy();
+            if (announce && assignedBy != null && assignedBy.isOnline()) {
+                MessageUtil.sendInfo(assignedBy, "&6[" + details.getName() + "] &eStarted " + task.getType() + " task!");
+            }
+        }
+    }
+    
+    /**
+     * Stops the current task's runnable and puts the task back in the queue with its progress
+     */
+    private void preemptCurrentTask(NPCManager.NPCDetails details, TaskQueue queue) {
+        TaskExecutor runnable = activeTaskRunnables.remove(details.getCitizensId());
+        if (runnable != null) {
+            runnable.cancel();
         }
+        queue.requeueCurrentTask();
     }
     
     /**
@@ -252,7 +423,7 @@ public class EnhancedTaskManager {
      */
     private void stopCurrentTask(NPCManager.NPCDetails details) {
         int npcId = details.getCitizensId();
-        BukkitRunnable runnable = activeTaskRunnables.remove(npcId);
+        TaskExecutor runnable = activeTaskRunnables.remove(npcId);
         if (runnable != null) {
             runnable.cancel();
         }
@@ -266,7 +437,7 @@ public class EnhancedTaskManager {
     /**
      * Creates a task runnable based on task type
      */
-    private BukkitRunnable createTaskRunnable(NPCManager.NPCDetails details, NPCTask task) {
+    private TaskExecutor createTaskRunnable(NPCManager.NPCDetails details, NPCTask task) {
         switch (task.getType()) {
             case "woodcutting":
                 return new WoodcuttingTaskRunnable(details, (WoodcuttingTask) task);
@@ -345,6 +516,35 @@ public class EnhancedTaskManager {
         }
     }
     
+    /**
+     * Outcome of a bulk assignment, counted from the threads that own the NPCs
+     */
+    public static class BulkAssignResult {
+        private final int selected;
+        private final AtomicInteger remaining;
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger unavailable = new AtomicInteger();
+        private final AtomicInteger missingTool = new AtomicInteger();
+        private final AtomicInteger queueFull = new AtomicInteger();
+        private final AtomicInteger excluded = new AtomicInteger(); // Failed the filter where they stand
+        private volatile boolean unknownTaskType; // Nothing was assigned at all
+        
+        private BulkAssignResult(int selected) {
+            this.selected = selected;
+            this.remaining = new AtomicInteger(selected);
+        }
+        
+        public int getStarted() { return started.get(); }
+        public int getQueued() { return queued.get(); }
+        public int getUnavailable() { return unavailable.get(); }
+        public int getMissingTool() { return missingTool.get(); }
+        public int getQueueFull() { return queueFull.get(); }
+        public int getAssigned() { return getStarted() + getQueued(); }
+        public int getMatched() { return selected - excluded.get(); }
+        public boolean isUnknownTaskType() { return unknownTaskType; }
+    }
+    
     /**
      * Loads saved data on startup
      */
@@ -370,13 +570,8 @@ public class EnhancedTaskManager {
      * Saves all data
      */
     public void saveAllData() {
-        for (Map.Entry<Integer, TaskQueue> entry : npcTaskQueues.entrySet()) {
-            persistence.saveTaskQueue(entry.getKey(), entry.getValue());
-        }
-        
-        for (Map.Entry<Integer, NPCToolInventory> entry : npcInventories.entrySet()) {
-            persistence.saveToolInventory(entry.getKey(), entry.getValue());
-        }
+        persistence.saveTaskQueues(npcTaskQueues);
+        persistence.saveToolInventories(npcInventories);
         
         plugin.getLogger().info("Saved data for " + npcTaskQueues.size() + " NPC task queues and " + npcInventories.size() + " tool inventories");
     }
@@ -401,7 +596,7 @@ public class EnhancedTaskManager {
      */
     public void clearNPCData(int npcId) {
         // Stop any active tasks
-        BukkitRunnable runnable = activeTaskRunnables.remove(npcId);
+        TaskExecutor runnable = activeTaskRunnables.remove(npcId);
         if (runnable != null) {
             runnable.cancel();
         }
@@ -414,15 +609,40 @@ public class EnhancedTaskManager {
         persistence.clearNPCData(npcId);
     }
     
+    /**
+     * Starts the task engine that ticks all task executors
+     */
+    public void startTaskEngine() {
+        taskEngine.start();
+    }
+    
+    /**
+     * Stops the task engine and every running executor
+     */
+    public void stopTaskEngine() {
+        taskEngine.stop();
+        activeTaskRunnables.clear();
+    }
+    
+    /**
+     * Gets the task engine and its shards
+     */
+    public TaskEngine getTaskEngine() {
+        return taskEngine;
+    }
+    
+    /**
+     * Gets the tree targets shared by all woodcutters
+     */
+    public TreeTargetPool getTreeTargetPool() {
+        return treeTargetPool;
+    }
+    
     /**
      * Auto-saves data periodically
      */
     public void startAutoSave() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                saveAllData();
-            }
-        }.runTaskTimer(plugin, 20L * 60L, 20L * 60L); // Save every minute
+        // On the thread that ticks the task engine
+        taskEngine.getScheduler().runGlobalRepeating(20L * 60L, 20L * 60L, this::saveAllData); // Save every minute
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package dev.archdemone.npcintegration.tasks;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+/**
+ * Runs task engine work on the thread that owns a part of the world
+ * On a classic server that is always the main thread. The interface leaves room for
+ * regions of chunks that tick on their own threads, which only
+ * {@link LocalExecutionScheduler} emulates for now
+ */
+public interface ExecutionScheduler {
+
+    /**
+     * Runs an action every tick on the thread that owns the given chunk
+     */
+    Handle runEveryTick(World world, int chunkX, int chunkZ, Runnable action);
+
+    /**
+     * Runs an action every period ticks on the thread that owns global (non-world) state
+     */
+    Handle runGlobalRepeating(long delay, long period, Runnable action);
+
+    /**
+     * Runs an action once, soon, on the thread that owns the given chunk
+     */
+    void execute(World world, int chunkX, int chunkZ, Runnable action);
+
+    /**
+     * Runs an action every period ticks on the thread that owns an entity, following it between regions
+     * Stops by itself once the entity is removed from the world
+     */
+    Handle runForEntity(Entity entity, long delay, long period, Runnable action);
+
+    /**
+     * Runs an action once after a delay on the thread that owns an entity, skipped if it is removed first
+     */
+    void runLaterForEntity(Entity entity, long delay, Runnable action);
+
+    /**
+     * Checks whether the current thread owns the given chunk
+     */
+    boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ);
+
+    /**
+     * Whether the world is split into regions that tick independently
+     */
+    boolean isRegionized();
+
+    /**
+     * A repeating action that can be stopped
+     */
+    interface Handle {
+        void cancel();
+    }
+}
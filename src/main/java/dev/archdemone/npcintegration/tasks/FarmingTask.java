@@ -6,6 +6,9 @@ import org.bukkit.entity.Player;
  * Farming task implementation
  */
 public class FarmingTask extends NPCTask {
+    private static final int TICKS_PER_HARVEST = 25; // Every 1.25 seconds
+    private static final int TICKS_PER_PLANTING = 50; // Every 2.5 seconds
+    
     private int cropsHarvested;
     private int cropsPlanted;
     
@@ -24,21 +27,65 @@ public class FarmingTask extends NPCTask {
         progress++;
         
         // Simulate farming work
-        if (progress % 25 == 0) { // Every 1.25 seconds
+        farm();
+        checkRepetition();
+        
+        return shouldContinue();
+    }
+    
+    @Override
+    public boolean supportsOfflineProgress() {
+        return true;
+    }
+    
+    @Override
+    public boolean simulateElapsed(int ticks) {
+        if (!shouldContinue()) {
+            return false;
+        }
+        
+        // Planting ticks are a subset of harvest ticks, so step from one harvest to the next
+        // and spend the rest between repetitions without advancing progress
+        long remaining = ticks;
+        int nextHarvest = (progress / TICKS_PER_HARVEST + 1) * TICKS_PER_HARVEST;
+        while (nextHarvest <= config.getDuration() && nextHarvest - progress <= remaining) {
+            remaining -= nextHarvest - progress;
+            progress = nextHarvest;
+            farm();
+            if (checkRepetition()) {
+                remaining -= Math.min(remaining, config.getDelayBetweenRepetitions());
+            }
+            if (!shouldContinue()) {
+                return false;
+            }
+            nextHarvest += TICKS_PER_HARVEST;
+        }
+        
+        progress = (int) Math.min(progress + remaining, config.getDuration());
+        return shouldContinue();
+    }
+    
+    private void farm() {
+        if (progress % TICKS_PER_HARVEST == 0) {
             cropsHarvested += (int) (Math.random() * 2) + 1; // 1-2 crops per cycle
         }
         
-        if (progress % 50 == 0) { // Every 2.5 seconds
+        if (progress % TICKS_PER_PLANTING == 0) {
             cropsPlanted += (int) (Math.random() * 3) + 1; // 1-3 crops per cycle
         }
-        
-        // Check if we've completed enough work for this repetition
+    }
+    
+    /**
+     * Check if we've completed enough work for this repetition
+     * @return true if a repetition was just completed
+     */
+    private boolean checkRepetition() {
         if (cropsHarvested >= config.getMinAmount()) {
             repetitionsCompleted++;
             cropsHarvested = 0; // Reset for next repetition
+            return true;
         }
-        
-        return shouldContinue();
+        return false;
     }
     
     @Override
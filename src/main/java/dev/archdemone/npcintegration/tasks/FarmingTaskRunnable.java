@@ -2,54 +2,169 @@ package dev.archdemone.npcintegration.tasks;
 
 import dev.archdemone.npcintegration.NPCIntegrationPlugin;
 import dev.archdemone.npcintegration.managers.NPCManager;
-import org.bukkit.scheduler.BukkitRunnable;
+import dev.archdemone.npcintegration.scanning.CropTracker;
+import dev.archdemone.npcintegration.scanning.LongBuffer;
+import dev.archdemone.npcintegration.scanning.ScanKernel;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.Ageable;
+import org.bukkit.block.data.BlockData;
 
 /**
  * Runnable for executing farming tasks
  */
-public class FarmingTaskRunnable extends BukkitRunnable {
-    private final NPCManager.NPCDetails details;
+public class FarmingTaskRunnable extends TaskExecutor {
+    private static final int HARVEST_REACH_SQUARED = 9; // Within 3 blocks of the crop
+    private static final long TARGET_TIMEOUT = 600L; // Ticks to reach a crop before it is given up on
+
     private final FarmingTask task;
     private final NPCIntegrationPlugin plugin;
-    private int cycleCount;
-    
+    private final CropTracker cropTracker;
+    private final boolean[] targetCrops;
+    private final LongBuffer ripeCrops;
+    private Location cropTarget;
+    private long targetSince;
+    private long unreachableCrop = ScanKernel.NO_MATCH; // Skipped by the next search, cleared on a harvest
+
     public FarmingTaskRunnable(NPCManager.NPCDetails details, FarmingTask task) {
-        this.details = details;
+        super(details);
         this.task = task;
         this.plugin = NPCIntegrationPlugin.getInstance();
-        this.cycleCount = 0;
+        this.cropTracker = plugin.getCropTracker();
+        this.targetCrops = CropTracker.targets(task.getConfig().getTargetMaterials());
+        this.ripeCrops = new LongBuffer();
     }
-    
+
     @Override
-    public void run() {
-        if (!isNPCActive()) {
-            cancel();
+    protected void onStart() {
+        // Walk to ripe crops the tracker knows about and harvest them once in reach
+        everyScan(40, this::findRipeCrop); // Every 2 seconds
+        every(5, this::harvestInReach);
+
+        // Play effects and send updates similar to other runnables
+        everyEffect(600, this::sendProgressUpdate);
+    }
+
+    @Override
+    protected NPCTask getTask() {
+        return task;
+    }
+
+    /**
+     * Heads for the nearest ripe target crop around the NPC
+     */
+    private void findRipeCrop() {
+        NPC npc = details.getCitizensNPC();
+        if (cropTarget != null || npc == null || !npc.isSpawned() || !cropTracker.isEnabled()) {
             return;
         }
-        
-        cycleCount++;
-        
-        if (!task.executeCycle()) {
-            completeTask();
-            cancel();
+
+        Location location = npc.getEntity().getLocation();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        ripeCrops.clear();
+        if (cropTracker.collectMature(location.getWorld(), x, y, z, task.getConfig().getCollectionRadius(), targetCrops, ripeCrops) == 0) {
             return;
         }
-        
-        // Play effects and send updates similar to other runnables
-        if (cycleCount % 600 == 0) {
-            sendProgressUpdate();
+
+        long nearest = ScanKernel.NO_MATCH;
+        long nearestDistance = Long.MAX_VALUE;
+        for (int i = 0; i < ripeCrops.size(); i++) {
+            long crop = ripeCrops.get(i);
+            if (crop == unreachableCrop) {
+                continue;
+            }
+            long dx = BlockPosUtil.unpackX(crop) - x;
+            long dy = BlockPosUtil.unpackY(crop) - y;
+            long dz = BlockPosUtil.unpackZ(crop) - z;
+            long distance = dx * dx + dy * dy + dz * dz;
+            if (distance < nearestDistance) {
+                nearest = crop;
+                nearestDistance = distance;
+            }
         }
+        if (nearest == ScanKernel.NO_MATCH) {
+            return;
+        }
+
+        cropTarget = new Location(location.getWorld(), BlockPosUtil.unpackX(nearest), BlockPosUtil.unpackY(nearest),
+            BlockPosUtil.unpackZ(nearest));
+        targetSince = getCurrentTick();
+        npc.getNavigator().setTarget(cropTarget);
     }
-    
-    private boolean isNPCActive() {
-        return details.getCitizensNPC() != null && details.getCitizensNPC().isSpawned();
+
+    /**
+     * Drops a crop the NPC could not get to, so the next search heads for another one
+     */
+    private void giveUpOnTarget(NPC npc) {
+        unreachableCrop = BlockPosUtil.pack(cropTarget.getBlockX(), cropTarget.getBlockY(), cropTarget.getBlockZ());
+        cropTarget = null;
+        if (npc.getNavigator().isNavigating()) {
+            npc.getNavigator().cancelNavigation();
+        }
     }
-    
+
+    /**
+     * Harvests and replants the target crop once the NPC has reached it
+     */
+    private void harvestInReach() {
+        NPC npc = details.getCitizensNPC();
+        if (cropTarget == null || npc == null || !npc.isSpawned()) {
+            return;
+        }
+
+        Location location = npc.getEntity().getLocation();
+        if (!location.getWorld().equals(cropTarget.getWorld())) {
+            cropTarget = null;
+            return;
+        }
+        if (location.distanceSquared(cropTarget) > HARVEST_REACH_SQUARED) {
+            // Pathfinding failed or was cancelled, or the walk is taking too long
+            if (!npc.getNavigator().isNavigating() || getCurrentTick() - targetSince > TARGET_TIMEOUT) {
+                giveUpOnTarget(npc);
+            }
+            return;
+        }
+
+        World world = cropTarget.getWorld();
+        if (!plugin.getChunkGuard().canProbe(world, cropTarget.getBlockX(), cropTarget.getBlockZ())) {
+            cropTarget = null;
+            return;
+        }
+        Block block = cropTarget.getBlock();
+        BlockData data = block.getBlockData();
+        cropTarget = null;
+        unreachableCrop = ScanKernel.NO_MATCH;
+        if (!targetCrops[data.getMaterial().ordinal()] || !(data instanceof Ageable) ||
+            ((Ageable) data).getAge() < ((Ageable) data).getMaximumAge()) {
+            return; // Someone else got there first
+        }
+
+        if (ticker == null) {
+            return;
+        }
+
+        // Harvest and replant at age zero through the shard's block queue, drops merge per chunk
+        BlockMutationQueue mutations = ticker.getMutations();
+        mutations.breakBlock(world, block.getX(), block.getY(), block.getZ(), false);
+        mutations.setBlock(world, block.getX(), block.getY(), block.getZ(), data.getMaterial().createBlockData(), false);
+    }
+
+    @Override
+    protected void onCancel() {
+        cropTarget = null;
+    }
+
     private void sendProgressUpdate() {
         // Implementation similar to WoodcuttingTaskRunnable
     }
-    
-    private void completeTask() {
+
+    @Override
+    protected void completeTask() {
         // Implementation similar to WoodcuttingTaskRunnable
     }
-}
\ No newline at end of file
+}
@@ -4,51 +4,31 @@ import dev.archdemone.npcintegration.NPCIntegrationPlugin;
 import dev.archdemone.npcintegration.managers.NPCManager;
 import dev.archdemone.npcintegration.integrations.CitizensIntegration;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * Runnable for executing following tasks
  */
-public class FollowingTaskRunnable extends BukkitRunnable {
-    private final NPCManager.NPCDetails details;
+public class FollowingTaskRunnable extends TaskExecutor {
     private final FollowingTask task;
     private final NPCIntegrationPlugin plugin;
-    private int cycleCount;
     
     public FollowingTaskRunnable(NPCManager.NPCDetails details, FollowingTask task) {
-        this.details = details;
+        super(details);
         this.task = task;
         this.plugin = NPCIntegrationPlugin.getInstance();
-        this.cycleCount = 0;
     }
     
     @Override
-    public void run() {
-        if (!isNPCActive()) {
-            cancel();
-            return;
-        }
-        
-        cycleCount++;
-        
-        if (!task.executeCycle()) {
-            completeTask();
-            cancel();
-            return;
-        }
-        
+    protected void onStart() {
         // Make NPC follow the player
-        if (cycleCount % 40 == 0) { // Every 2 seconds
-            followPlayer();
-        }
+        every(40, this::followPlayer); // Every 2 seconds
         
-        if (cycleCount % 600 == 0) {
-            sendProgressUpdate();
-        }
+        everyEffect(600, this::sendProgressUpdate);
     }
     
-    private boolean isNPCActive() {
-        return details.getCitizensNPC() != null && details.getCitizensNPC().isSpawned();
+    @Override
+    protected NPCTask getTask() {
+        return task;
     }
     
     private void followPlayer() {
@@ -68,7 +48,8 @@ public class FollowingTaskRunnable extends BukkitRunnable {
         // Implementation similar to WoodcuttingTaskRunnable
     }
     
-    private void completeTask() {
+    @Override
+    protected void completeTask() {
         // Implementation similar to WoodcuttingTaskRunnable
     }
 }
\ No newline at end of file
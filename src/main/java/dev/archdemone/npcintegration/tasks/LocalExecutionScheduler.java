@@ -0,0 +1,133 @@
+package dev.archdemone.npcintegration.tasks;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Stand-in scheduler that runs everything on the thread that calls {@link #tick()}
+ * Lets the task engine, including its regionized shard and handoff paths, be driven
+ * tick by tick from a single thread; with performance.emulate-regions it is ticked by
+ * one main-thread timer, so the shard code runs on a classic server. Actions may be
+ * submitted from any thread, they start on the next tick
+ */
+public class LocalExecutionScheduler implements ExecutionScheduler {
+
+    private final boolean regionized;
+    private final List<Repeating> repeating; // Only touched by the ticking thread
+    private final Queue<Repeating> added;
+    private final Queue<Runnable> pending;
+    private volatile Thread owner;
+    private volatile long currentTick;
+
+    public LocalExecutionScheduler(boolean regionized) {
+        this.regionized = regionized;
+        this.repeating = new ArrayList<>();
+        this.added = new ConcurrentLinkedQueue<>();
+        this.pending = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Runs queued one-off actions, then every repeating or delayed action that is due
+     */
+    public void tick() {
+        owner = Thread.currentThread();
+        currentTick++;
+
+        Runnable action;
+        while ((action = pending.poll()) != null) {
+            action.run();
+        }
+
+        Repeating entry;
+        while ((entry = added.poll()) != null) {
+            repeating.add(entry);
+        }
+        repeating.removeIf(due -> due.cancelled);
+        for (Repeating due : new ArrayList<>(repeating)) {
+            if (!due.cancelled && currentTick >= due.nextTick) {
+                if (due.period > 0) {
+                    due.nextTick = currentTick + due.period;
+                } else {
+                    due.cancelled = true; // Delayed one-off
+                }
+                due.action.run();
+            }
+        }
+    }
+
+    @Override
+    public Handle runEveryTick(World world, int chunkX, int chunkZ, Runnable action) {
+        return runGlobalRepeating(1L, 1L, action);
+    }
+
+    @Override
+    public Handle runGlobalRepeating(long delay, long period, Runnable action) {
+        Repeating entry = new Repeating(action, currentTick + Math.max(1L, delay), Math.max(1L, period));
+        added.offer(entry);
+        return () -> entry.cancelled = true;
+    }
+
+    @Override
+    public Handle runForEntity(Entity entity, long delay, long period, Runnable action) {
+        Repeating entry = new Repeating(null, currentTick + Math.max(1L, delay), Math.max(1L, period));
+        entry.action = () -> {
+            if (entity.isValid()) {
+                action.run();
+            } else {
+                entry.cancelled = true;
+            }
+        };
+        added.offer(entry);
+        return () -> entry.cancelled = true;
+    }
+
+    @Override
+    public void runLaterForEntity(Entity entity, long delay, Runnable action) {
+        added.offer(new Repeating(() -> {
+            if (entity.isValid()) {
+                action.run();
+            }
+        }, currentTick + Math.max(1L, delay), 0L));
+    }
+
+    @Override
+    public void execute(World world, int chunkX, int chunkZ, Runnable action) {
+        if (owner == Thread.currentThread()) {
+            action.run();
+        } else {
+            pending.offer(action);
+        }
+    }
+
+    /**
+     * Every chunk belongs to the ticking thread; before the first tick any thread counts
+     */
+    @Override
+    public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+        Thread current = owner;
+        return current == null || current == Thread.currentThread();
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return regionized;
+    }
+
+    private static final class Repeating {
+        private Runnable action;
+        private final long period; // 0 runs once
+        private long nextTick;
+        private volatile boolean cancelled;
+
+        private Repeating(Runnable action, long nextTick, long period) {
+            this.action = action;
+            this.nextTick = nextTick;
+            this.period = period;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.archdemone.npcintegration.tasks;
+
+/**
+ * Level-of-detail tiers for NPC task execution, picked from the nearest player's distance
+ * Lower tiers run less often but catch up on every skipped cycle, so task progress is the same
+ */
+public enum LodTier {
+    FULL(1, true, true),            // Near players: every tick, effects and scans
+    REDUCED(4, false, true),        // Mid range: every 4 ticks, scans only
+    COUNTER_ONLY(20, false, false); // Far away: once a second, counters only
+
+    private final int tickInterval;
+    private final boolean effects;
+    private final boolean scans;
+
+    LodTier(int tickInterval, boolean effects, boolean scans) {
+        this.tickInterval = tickInterval;
+        this.effects = effects;
+        this.scans = scans;
+    }
+
+    public int getTickInterval() { return tickInterval; }
+    public boolean hasEffects() { return effects; }
+    public boolean hasScans() { return scans; }
+}
@@ -7,6 +7,8 @@ import org.bukkit.entity.Player;
  * Mining task implementation
  */
 public class MiningTask extends NPCTask {
+    private static final int TICKS_PER_BLOCK = 40; // Every 2 seconds
+    
     public int oresMined;
     public int blocksBroken;
     
@@ -25,20 +27,65 @@ public class MiningTask extends NPCTask {
         progress++;
         
         // Simulate mining work
-        if (progress % 40 == 0) { // Every 2 seconds
-            blocksBroken++;
-            if (Math.random() < 0.3) { // 30% chance to find ore
-                oresMined++;
+        if (progress % TICKS_PER_BLOCK == 0) {
+            breakBlock();
+        }
+        
+        checkRepetition();
+        
+        return shouldContinue();
+    }
+    
+    @Override
+    public boolean supportsOfflineProgress() {
+        return true;
+    }
+    
+    @Override
+    public boolean simulateElapsed(int ticks) {
+        if (!shouldContinue()) {
+            return false;
+        }
+        
+        // Only every 40th tick changes the counters, so step from one block to the next
+        // and spend the rest between repetitions without advancing progress
+        long remaining = ticks;
+        int nextBlock = (progress / TICKS_PER_BLOCK + 1) * TICKS_PER_BLOCK;
+        while (nextBlock <= config.getDuration() && nextBlock - progress <= remaining) {
+            remaining -= nextBlock - progress;
+            progress = nextBlock;
+            breakBlock();
+            if (checkRepetition()) {
+                remaining -= Math.min(remaining, config.getDelayBetweenRepetitions());
             }
+            if (!shouldContinue()) {
+                return false;
+            }
+            nextBlock += TICKS_PER_BLOCK;
         }
         
-        // Check if we've completed enough work for this repetition
+        progress = (int) Math.min(progress + remaining, config.getDuration());
+        return shouldContinue();
+    }
+    
+    private void breakBlock() {
+        blocksBroken++;
+        if (Math.random() < 0.3) { // 30% chance to find ore
+            oresMined++;
+        }
+    }
+    
+    /**
+     * Check if we've completed enough work for this repetition
+     * @return true if a repetition was just completed
+     */
+    private boolean checkRepetition() {
         if (oresMined >= config.getMinAmount()) {
             repetitionsCompleted++;
             oresMined = 0; // Reset for next repetition
+            return true;
         }
-        
-        return shouldContinue();
+        return false;
     }
     
     @Override
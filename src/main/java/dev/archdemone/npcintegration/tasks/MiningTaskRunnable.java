@@ -2,56 +2,234 @@ package dev.archdemone.npcintegration.tasks;
 
 import dev.archdemone.npcintegration.NPCIntegrationPlugin;
 import dev.archdemone.npcintegration.managers.NPCManager;
+import dev.archdemone.npcintegration.scanning.BlockMatcher;
+import dev.archdemone.npcintegration.scanning.LongBuffer;
+import dev.archdemone.npcintegration.scanning.LongHashSet;
+import dev.archdemone.npcintegration.scanning.NearestSet;
+import dev.archdemone.npcintegration.scanning.PaletteFilter;
+import dev.archdemone.npcintegration.scanning.ResourceIndex;
+import dev.archdemone.npcintegration.scanning.ResourceType;
+import dev.archdemone.npcintegration.scanning.ScanCursor;
+import dev.archdemone.npcintegration.scanning.ScanKernel;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import net.citizensnpcs.api.npc.NPC;
 import org.bukkit.*;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * Runnable for executing mining tasks
  */
-public class MiningTaskRunnable extends BukkitRunnable {
-    private final NPCManager.NPCDetails details;
+public class MiningTaskRunnable extends TaskExecutor {
+    private static final int ORE_SEARCH_BELOW = 10; // Scan band relative to the NPC
+    private static final int ORE_SEARCH_ABOVE = 5;
+    private static final int REACH_SQUARED = 16; // Within 4 blocks of the ore
+    private static final long TARGET_TIMEOUT = 600L; // Ticks to reach an ore before it is given up on
+    private static final int CANDIDATES = 2; // Nearest ores kept per search, so an abandoned one can be passed over
+    
     private final MiningTask task;
     private final NPCIntegrationPlugin plugin;
-    private int cycleCount;
+    private final BlockMatcher oreMatcher;
+    private final PaletteFilter oreFilter;
+    private final int blocksPerTick;
+    private final LongBuffer indexHits;
+    private final LongHashSet indexedChunks;
+    private final NearestSet indexedOres;
+    private ScanCursor oreScan;
+    private Location oreTarget;
+    private long targetSince;
+    private long unreachableOre = ScanKernel.NO_MATCH; // Skipped by the next scan, cleared once an ore is mined
     
     public MiningTaskRunnable(NPCManager.NPCDetails details, MiningTask task) {
-        this.details = details;
+        super(details);
         this.task = task;
         this.plugin = NPCIntegrationPlugin.getInstance();
-        this.cycleCount = 0;
+        this.oreMatcher = ScanKernel.matchingAny(task.getConfig().getTargetMaterials());
+        this.oreFilter = PaletteFilter.of(task.getConfig().getTargetMaterials());
+        this.blocksPerTick = Math.max(1, plugin.getConfig().getInt("performance.scan-blocks-per-tick", 2048));
+        this.indexHits = new LongBuffer();
+        this.indexedChunks = new LongHashSet();
+        this.indexedOres = new NearestSet(CANDIDATES);
     }
     
     @Override
-    public void run() {
-        if (!isNPCActive()) {
-            cancel();
+    protected void onStart() {
+        // Play effects
+        everyEffect(task.getConfig().getSoundInterval(), this::playWorkSounds);
+        everyEffect(task.getConfig().getParticleInterval(), this::playWorkParticles);
+        
+        // Look for ore every 10 seconds, the scan itself is spread over as many ticks as it needs
+        everyScan(200, this::startOreScan);
+        every(1, this::advanceOreScan);
+        every(5, this::mineInReach);
+        
+        everyEffect(600, this::sendProgressUpdate);
+    }
+    
+    /**
+     * Looks for the nearest target ore unless the current one is still there
+     * Indexed chunks answer from the resource index right away; only the rest are
+     * scanned block by block, time-sliced over as many ticks as it takes
+     */
+    private void startOreScan() {
+        NPC npc = details.getCitizensNPC();
+        if (npc == null || !npc.isSpawned() || oreScan != null) {
             return;
         }
         
-        cycleCount++;
+        if (oreTarget != null && plugin.getChunkGuard().canProbe(oreTarget.getWorld(), oreTarget.getBlockX(), oreTarget.getBlockZ()) &&
+            oreMatcher.matches(oreTarget.getWorld(), oreTarget.getBlockX(), oreTarget.getBlockY(), oreTarget.getBlockZ())) {
+            return;
+        }
+        oreTarget = null;
         
-        if (!task.executeCycle()) {
-            completeTask();
-            cancel();
+        Location location = npc.getEntity().getLocation();
+        World world = location.getWorld();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        int radius = task.getConfig().getCollectionRadius();
+        if (!collectIndexedOres(world, x, y, z, radius)) {
+            headForNearest(world, null);
             return;
         }
         
-        // Play effects
-        if (cycleCount % task.getConfig().getSoundInterval() == 0) {
-            playWorkSounds();
+        oreScan = new ScanCursor(world, x, y, z, radius, ORE_SEARCH_BELOW, ORE_SEARCH_ABOVE, oreMatcher, CANDIDATES)
+            .skipChunksIn(indexedChunks)
+            .skipChunksWithout(oreFilter)
+            .guardedBy(plugin.getChunkGuard())
+            .onComplete(this::onOreScanComplete);
+    }
+    
+    /**
+     * Keeps the nearest target ores the resource index knows of in the search box
+     * @return true if some chunks of the box are not indexed and still need scanning
+     */
+    private boolean collectIndexedOres(World world, int x, int y, int z, int radius) {
+        ResourceIndex resourceIndex = plugin.getResourceIndex();
+        indexedOres.reset(CANDIDATES);
+        indexedChunks.clear();
+        boolean unindexed = false;
+        for (int chunkX = (x - radius) >> 4; chunkX <= (x + radius) >> 4; chunkX++) {
+            for (int chunkZ = (z - radius) >> 4; chunkZ <= (z + radius) >> 4; chunkZ++) {
+                // Unloaded chunks are left to the scan, which reports them to the chunk guard
+                indexHits.clear();
+                if (!world.isChunkLoaded(chunkX, chunkZ) || resourceIndex.collect(world, chunkX, chunkZ, ResourceType.ORE,
+                    y - ORE_SEARCH_BELOW, y + ORE_SEARCH_ABOVE, indexHits) < 0) {
+                    unindexed = true;
+                    continue;
+                }
+                indexedChunks.add(BlockPosUtil.chunkKey(chunkX, chunkZ));
+                
+                // The index holds every kind of ore, keep the ones this task is after
+                for (int i = 0; i < indexHits.size(); i++) {
+                    long ore = indexHits.get(i);
+                    int oreX = BlockPosUtil.unpackX(ore);
+                    int oreY = BlockPosUtil.unpackY(ore);
+                    int oreZ = BlockPosUtil.unpackZ(ore);
+                    if (Math.abs(oreX - x) > radius || Math.abs(oreZ - z) > radius ||
+                        !oreMatcher.matches(world, oreX, oreY, oreZ)) {
+                        continue;
+                    }
+                    long dx = oreX - x;
+                    long dy = oreY - y;
+                    long dz = oreZ - z;
+                    indexedOres.offer(ore, dx * dx + dy * dy + dz * dz);
+                }
+            }
+        }
+        return unindexed;
+    }
+    
+    /**
+     * Queues the target ore to be broken once the NPC has reached it
+     */
+    private void mineInReach() {
+        NPC npc = details.getCitizensNPC();
+        if (oreTarget == null || ticker == null || npc == null || !npc.isSpawned()) {
+            return;
         }
         
-        if (cycleCount % task.getConfig().getParticleInterval() == 0) {
-            playWorkParticles();
+        Location location = npc.getEntity().getLocation();
+        World world = oreTarget.getWorld();
+        if (!location.getWorld().equals(world)) {
+            oreTarget = null;
+            return;
+        }
+        if (location.distanceSquared(oreTarget) > REACH_SQUARED) {
+            // Pathfinding failed or was cancelled, or the walk is taking too long
+            if (!npc.getNavigator().isNavigating() || getCurrentTick() - targetSince > TARGET_TIMEOUT) {
+                giveUpOnTarget(npc);
+            }
+            return;
         }
         
-        if (cycleCount % 600 == 0) {
-            sendProgressUpdate();
+        int x = oreTarget.getBlockX();
+        int y = oreTarget.getBlockY();
+        int z = oreTarget.getBlockZ();
+        oreTarget = null;
+        unreachableOre = ScanKernel.NO_MATCH;
+        if (plugin.getChunkGuard().canProbe(world, x, z) && oreMatcher.matches(world, x, y, z)) {
+            ticker.getMutations().breakBlock(world, x, y, z, true);
         }
     }
     
-    private boolean isNPCActive() {
-        return details.getCitizensNPC() != null && details.getCitizensNPC().isSpawned();
+    /**
+     * Drops an ore the NPC could not get to, so the next scan picks another one
+     */
+    private void giveUpOnTarget(NPC npc) {
+        unreachableOre = BlockPosUtil.pack(oreTarget.getBlockX(), oreTarget.getBlockY(), oreTarget.getBlockZ());
+        oreTarget = null;
+        if (npc.getNavigator().isNavigating()) {
+            npc.getNavigator().cancelNavigation();
+        }
+    }
+    
+    private void advanceOreScan() {
+        if (oreScan != null) {
+            oreScan.advance(blocksPerTick);
+        }
+    }
+    
+    private void onOreScanComplete(ScanCursor scan) {
+        oreScan = null;
+        headForNearest(scan.getWorld(), scan.getResults());
+    }
+    
+    /**
+     * Heads for the nearest ore found in the index or by the scan, passing over the one last given up on
+     */
+    private void headForNearest(World world, NearestSet scanned) {
+        if (scanned != null) {
+            for (int i = 0; i < scanned.size(); i++) {
+                indexedOres.offer(scanned.get(i), scanned.getDistanceSquared(i));
+            }
+        }
+        long ore = ScanKernel.NO_MATCH;
+        for (int i = 0; i < indexedOres.size() && ore == ScanKernel.NO_MATCH; i++) {
+            if (indexedOres.get(i) != unreachableOre) {
+                ore = indexedOres.get(i);
+            }
+        }
+        NPC npc = details.getCitizensNPC();
+        if (ore == ScanKernel.NO_MATCH || npc == null || !npc.isSpawned()) {
+            return;
+        }
+        
+        oreTarget = new Location(world, BlockPosUtil.unpackX(ore), BlockPosUtil.unpackY(ore), BlockPosUtil.unpackZ(ore));
+        targetSince = getCurrentTick();
+        npc.getNavigator().setTarget(oreTarget);
+    }
+    
+    @Override
+    protected void onCancel() {
+        if (oreScan != null) {
+            oreScan.cancel();
+            oreScan = null;
+        }
+    }
+    
+    @Override
+    protected NPCTask getTask() {
+        return task;
     }
     
     private void playWorkSounds() {
@@ -66,7 +244,8 @@ public class MiningTaskRunnable extends BukkitRunnable {
         // Implementation similar to WoodcuttingTaskRunnable
     }
     
-    private void completeTask() {
+    @Override
+    protected void completeTask() {
         // Implementation similar to WoodcuttingTaskRunnable
     }
 }
\ No newline at end of file
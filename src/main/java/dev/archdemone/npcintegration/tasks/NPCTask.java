@@ -14,6 +14,7 @@ public abstract class NPCTask {
     protected int repetitionsCompleted;
     protected boolean isCompleted;
     protected boolean isPaused;
+    long queueSequence; // Arrival order in its TaskQueue, kept when the task is preempted
     
     public NPCTask(String taskType, Player assignedBy, TaskConfiguration config) {
         this.taskType = taskType;
@@ -32,6 +33,29 @@ public abstract class NPCTask {
      */
     public abstract boolean executeCycle();
     
+    /**
+     * Whether this task's progress is pure counter arithmetic that can be worked out
+     * while the NPC's chunk is unloaded, instead of stopping the task
+     */
+    public boolean supportsOfflineProgress() {
+        return false;
+    }
+    
+    /**
+     * Advances the task by the given number of ticks at once
+     * Tasks that support offline progress override this to skip straight between
+     * the ticks that actually change their counters
+     * @return true if task should continue, false if completed
+     */
+    public boolean simulateElapsed(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            if (!executeCycle()) {
+                return false;
+            }
+        }
+        return shouldContinue();
+    }
+    
     /**
      * Gets the current progress as a percentage (0-100)
      */
@@ -0,0 +1,180 @@
+package dev.archdemone.npcintegration.tasks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns phase offsets to periodic NPC work so it never lands on the same tick
+ * Each period has a table of phase slots; a new timer starts at a slot hashed from
+ * the NPC's Citizens id and settles on the nearest least-loaded one. When a timer
+ * leaves, one timer from the busiest slot moves into the gap, so slot loads never
+ * differ by more than one
+ */
+public class PhaseStagger {
+
+    private final TimingWheel wheel;
+    private final Map<Integer, PhaseTable> tables;
+
+    public PhaseStagger(TimingWheel wheel) {
+        this.wheel = wheel;
+        this.tables = new HashMap<>();
+    }
+
+    /**
+     * Schedules an action every period ticks on a staggered phase for the given NPC
+     */
+    public StaggeredTimer schedule(int npcId, int period, Runnable action) {
+        PhaseTable table = tables.computeIfAbsent(period, PhaseTable::new);
+        StaggeredTimer timer = new StaggeredTimer(period, action);
+        table.add(timer, table.findSlot(Math.floorMod(mix(npcId), period)));
+        start(timer);
+        return timer;
+    }
+
+    /**
+     * Cancels a staggered timer and rebalances its period's phases
+     */
+    public void release(StaggeredTimer timer) {
+        if (timer.released) {
+            return;
+        }
+        timer.released = true;
+        timer.timer.cancel();
+
+        PhaseTable table = tables.get(timer.period);
+        if (table == null) {
+            return;
+        }
+
+        int freedSlot = timer.phase;
+        table.remove(timer);
+
+        if (table.total == 0) {
+            tables.remove(timer.period);
+            return;
+        }
+
+        // Pull one timer from the busiest slot into the gap
+        int busiest = table.busiestSlot();
+        if (table.load[busiest] - table.load[freedSlot] > 1) {
+            List<StaggeredTimer> members = table.members[busiest];
+            StaggeredTimer moved = members.get(members.size() - 1);
+            table.remove(moved);
+            table.add(moved, freedSlot);
+            moved.timer.cancel();
+            start(moved);
+        }
+    }
+
+    private void start(StaggeredTimer timer) {
+        long delay = Math.floorMod(timer.phase - wheel.getCurrentTick(), (long) timer.period);
+        timer.timer = wheel.scheduleRepeating(delay == 0 ? timer.period : delay, timer.period, timer.action);
+    }
+
+    /**
+     * Spreads sequential ids across the phase range (murmur3 finalizer)
+     */
+    private static int mix(int value) {
+        int h = value;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Gets the number of timers on each phase of a period (for diagnostics)
+     */
+    public int[] getLoad(int period) {
+        PhaseTable table = tables.get(period);
+        return table != null ? table.load.clone() : new int[0];
+    }
+
+    /**
+     * Phase slots for one period
+     */
+    private static final class PhaseTable {
+        private final int[] load;
+        private final List<StaggeredTimer>[] members;
+        private int total;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private PhaseTable(int period) {
+            this.load = new int[period];
+            this.members = new List[period];
+        }
+
+        /**
+         * Finds the least-loaded slot closest to (at or after) the preferred one
+         */
+        private int findSlot(int preferred) {
+            int min = Integer.MAX_VALUE;
+            for (int count : load) {
+                min = Math.min(min, count);
+            }
+
+            for (int offset = 0; offset < load.length; offset++) {
+                int slot = (preferred + offset) % load.length;
+                if (load[slot] == min) {
+                    return slot;
+                }
+            }
+            return preferred;
+        }
+
+        private int busiestSlot() {
+            int busiest = 0;
+            for (int slot = 1; slot < load.length; slot++) {
+                if (load[slot] > load[busiest]) {
+                    busiest = slot;
+                }
+            }
+            return busiest;
+        }
+
+        private void add(StaggeredTimer timer, int slot) {
+            if (members[slot] == null) {
+                members[slot] = new ArrayList<>(2);
+            }
+            members[slot].add(timer);
+            timer.phase = slot;
+            load[slot]++;
+            total++;
+        }
+
+        private void remove(StaggeredTimer timer) {
+            if (members[timer.phase] != null && members[timer.phase].remove(timer)) {
+                load[timer.phase]--;
+                total--;
+            }
+        }
+    }
+
+    /**
+     * Handle for a staggered repeating timer, its wheel entry changes when it is rebalanced
+     */
+    public static final class StaggeredTimer {
+        private final int period;
+        private final Runnable action;
+        private int phase;
+        private boolean released;
+        private TimingWheel.WheelTimer timer;
+
+        private StaggeredTimer(int period, Runnable action) {
+            this.period = period;
+            this.action = action;
+        }
+
+        public int getPeriod() {
+            return period;
+        }
+
+        public int getPhase() {
+            return phase;
+        }
+    }
+}
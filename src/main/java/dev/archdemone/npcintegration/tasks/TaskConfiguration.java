@@ -12,11 +12,18 @@ import java.util.*;
  */
 public class TaskConfiguration {
     
+    // Priority levels
+    public static final int PRIORITY_LOW = -10;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 10;
+    
     // Task execution settings
     private int duration; // Duration in ticks (20 ticks = 1 second)
     private int repetitions; // How many times to repeat the task
     private int delayBetweenRepetitions; // Delay between repetitions in ticks
     private boolean canInterrupt; // Whether this task can be interrupted
+    private int priority; // Higher runs first and can preempt lower priority work
+    private long deadline; // Epoch millis the task should start by, 0 for none
     
     // Material and tool requirements
     private Material requiredTool;
@@ -47,6 +54,8 @@ public class TaskConfiguration {
         this.repetitions = 1;
         this.delayBetweenRepetitions = 0;
         this.canInterrupt = true;
+        this.priority = PRIORITY_NORMAL;
+        this.deadline = 0;
         this.requiredTool = null;
         this.preferredToolMaterials = new Material[]{Material.DIAMOND_AXE, Material.IRON_AXE, Material.STONE_AXE, Material.WOODEN_AXE};
         this.toolEfficiency = new HashMap<>();
@@ -89,6 +98,13 @@ public class TaskConfiguration {
     public boolean canInterrupt() { return canInterrupt; }
     public void setCanInterrupt(boolean canInterrupt) { this.canInterrupt = canInterrupt; }
     
+    public int getPriority() { return priority; }
+    public void setPriority(int priority) { this.priority = priority; }
+    
+    public long getDeadline() { return deadline; }
+    public void setDeadline(long deadline) { this.deadline = deadline; }
+    public boolean hasDeadline() { return deadline > 0; }
+    
     public Material getRequiredTool() { return requiredTool; }
     public void setRequiredTool(Material requiredTool) { this.requiredTool = requiredTool; }
     
@@ -141,6 +157,55 @@ public class TaskConfiguration {
         return toolEfficiency.getOrDefault(toolMaterial, 1.0f);
     }
     
+    /**
+     * Creates an independent copy, so each task can change its own settings
+     */
+    public TaskConfiguration copy() {
+        TaskConfiguration copy = new TaskConfiguration();
+        copy.duration = duration;
+        copy.repetitions = repetitions;
+        copy.delayBetweenRepetitions = delayBetweenRepetitions;
+        copy.canInterrupt = canInterrupt;
+        copy.priority = priority;
+        copy.deadline = deadline;
+        copy.requiredTool = requiredTool;
+        copy.preferredToolMaterials = copyOf(preferredToolMaterials);
+        copy.toolEfficiency = toolEfficiency != null ? new HashMap<>(toolEfficiency) : null;
+        copy.targetMaterials = copyOf(targetMaterials);
+        copy.minAmount = minAmount;
+        copy.maxAmount = maxAmount;
+        copy.collectionRadius = collectionRadius;
+        copy.workSounds = copyOf(workSounds);
+        copy.completionSounds = copyOf(completionSounds);
+        copy.workParticles = copyOf(workParticles);
+        copy.completionParticles = copyOf(completionParticles);
+        copy.soundInterval = soundInterval;
+        copy.particleInterval = particleInterval;
+        copy.animationName = animationName;
+        copy.animationInterval = animationInterval;
+        return copy;
+    }
+    
+    private static <T> T[] copyOf(T[] array) {
+        return array != null ? array.clone() : null;
+    }
+    
+    /**
+     * Creates the default configuration for a task type
+     */
+    public static TaskConfiguration createDefaultConfig(String taskType) {
+        switch (taskType.toLowerCase()) {
+            case "woodcutting":
+                return createWoodcuttingConfig();
+            case "mining":
+                return createMiningConfig();
+            case "farming":
+                return createFarmingConfig();
+            default:
+                return new TaskConfiguration();
+        }
+    }
+    
     /**
      * Creates a woodcutting task configuration
      */
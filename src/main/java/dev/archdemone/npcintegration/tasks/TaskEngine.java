@@ -0,0 +1,198 @@
+package dev.archdemone.npcintegration.tasks;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the task tickers and the scheduler that drives them
+ * Normally there is one ticker on the main thread. With a regionized scheduler the
+ * world is cut into shards of 16x16 chunks (Folia's region section size, so a shard
+ * would never span two regions), each with its own ticker running on the thread that
+ * owns it; executors are handed to the next shard as their NPC moves. No region-threaded
+ * scheduler ships: performance.emulate-regions runs the shards on the main thread
+ * through a {@link LocalExecutionScheduler}, and the plugin does not declare Folia support
+ */
+public class TaskEngine {
+
+    static final int SHARD_CHUNK_SHIFT = 4;
+
+    private final NPCIntegrationPlugin plugin;
+    private final ExecutionScheduler scheduler;
+    private final TaskTicker mainShard; // The only shard on a classic server
+    private final Map<UUID, Map<Long, TaskTicker>> shards;
+    private volatile boolean running;
+
+    public TaskEngine(NPCIntegrationPlugin plugin) {
+        this(plugin, createScheduler(plugin));
+    }
+
+    public TaskEngine(NPCIntegrationPlugin plugin, ExecutionScheduler scheduler) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.mainShard = scheduler.isRegionized() ? null : new TaskTicker(plugin, this, null, 0, 0);
+        this.shards = new ConcurrentHashMap<>();
+    }
+
+    private static ExecutionScheduler createScheduler(NPCIntegrationPlugin plugin) {
+        ExecutionScheduler bukkit = new BukkitExecutionScheduler(plugin);
+        if (!plugin.getConfig().getBoolean("performance.emulate-regions", false)) {
+            return bukkit;
+        }
+        LocalExecutionScheduler local = new LocalExecutionScheduler(true);
+        bukkit.runGlobalRepeating(1L, 1L, local::tick);
+        plugin.getLogger().info("Emulating region shards on the main thread, NPC tasks will tick per shard");
+        return local;
+    }
+
+    /**
+     * Starts ticking; with a regionized scheduler shards start as NPCs arrive in them
+     */
+    public void start() {
+        running = true;
+        if (mainShard != null) {
+            mainShard.start();
+        }
+    }
+
+    /**
+     * Stops every shard and cancels every executor
+     */
+    public void stop() {
+        running = false;
+        for (TaskTicker shard : getShards()) {
+            shard.stop();
+        }
+        shards.clear();
+    }
+
+    /**
+     * Registers an executor with the shard that owns its NPC, from any thread
+     */
+    public void schedule(TaskExecutor executor, long delay) {
+        Location location = locate(executor);
+        TaskTicker shard = location != null ?
+            shardFor(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4) : mainShard;
+        if (shard == null) {
+            plugin.getLogger().warning("Could not place NPC #" + executor.getNpcId() + " on a task shard, it has no location");
+            return;
+        }
+        shard.scheduleFromAnyThread(executor, delay);
+    }
+
+    private static Location locate(TaskExecutor executor) {
+        NPC npc = executor.getDetails().getCitizensNPC();
+        if (npc != null && npc.isSpawned()) {
+            return npc.getEntity().getLocation();
+        }
+        return executor.getDetails().getLocation();
+    }
+
+    /**
+     * Gets the shard that owns a chunk, creating and starting it if needed
+     */
+    TaskTicker shardFor(World world, int chunkX, int chunkZ) {
+        if (mainShard != null || world == null) {
+            return mainShard;
+        }
+
+        int shardX = chunkX >> SHARD_CHUNK_SHIFT;
+        int shardZ = chunkZ >> SHARD_CHUNK_SHIFT;
+        return shards.computeIfAbsent(world.getUID(), id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(BlockPosUtil.chunkKey(shardX, shardZ), key -> {
+                TaskTicker shard = new TaskTicker(plugin, this, world, shardX, shardZ);
+                if (running) {
+                    shard.start();
+                }
+                return shard;
+            });
+    }
+
+    /**
+     * Checks whether a chunk belongs to the given shard
+     */
+    boolean owns(TaskTicker shard, World world, int chunkX, int chunkZ) {
+        return shard == mainShard || shard.isShardOf(world, chunkX >> SHARD_CHUNK_SHIFT, chunkZ >> SHARD_CHUNK_SHIFT);
+    }
+
+    /**
+     * Suspends tasks in an unloading chunk, called on the chunk's own thread
+     */
+    public void suspendChunk(Chunk chunk) {
+        TaskTicker shard = existingShardFor(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        if (shard != null) {
+            shard.suspendChunk(chunk);
+        }
+    }
+
+    /**
+     * Resumes tasks in a loading chunk, called on the chunk's own thread
+     */
+    public void resumeChunk(Chunk chunk) {
+        TaskTicker shard = existingShardFor(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        if (shard != null) {
+            shard.resumeChunk(chunk);
+        }
+    }
+
+    private TaskTicker existingShardFor(World world, int chunkX, int chunkZ) {
+        if (mainShard != null) {
+            return mainShard;
+        }
+        Map<Long, TaskTicker> worldShards = shards.get(world.getUID());
+        return worldShards != null ?
+            worldShards.get(BlockPosUtil.chunkKey(chunkX >> SHARD_CHUNK_SHIFT, chunkZ >> SHARD_CHUNK_SHIFT)) : null;
+    }
+
+    /**
+     * Runs a command on the thread that owns the given location, or right away on a classic
+     * server's main thread; other classic threads go through the main shard's inbox
+     */
+    public void execute(Location location, Runnable command) {
+        if (mainShard != null) {
+            if (plugin.getServer().isPrimaryThread()) {
+                command.run();
+            } else {
+                mainShard.getInbox().submit(command);
+            }
+            return;
+        }
+
+        if (location == null || location.getWorld() == null) {
+            plugin.getLogger().warning("Dropped an NPC task command with no location to run it at");
+            return;
+        }
+        scheduler.execute(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4, command);
+    }
+
+    /**
+     * Gets every shard, a single one on a classic server
+     */
+    public List<TaskTicker> getShards() {
+        List<TaskTicker> result = new ArrayList<>();
+        if (mainShard != null) {
+            result.add(mainShard);
+        }
+        for (Map<Long, TaskTicker> worldShards : shards.values()) {
+            result.addAll(worldShards.values());
+        }
+        return result;
+    }
+
+    public ExecutionScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public boolean isRegionized() {
+        return scheduler.isRegionized();
+    }
+}
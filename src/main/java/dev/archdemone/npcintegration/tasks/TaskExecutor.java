@@ -0,0 +1,264 @@
+package dev.archdemone.npcintegration.tasks;
+
+import dev.archdemone.npcintegration.managers.NPCManager;
+import net.citizensnpcs.api.npc.NPC;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for task runnables driven by the shared {@link TaskTicker}
+ * Mirrors the run/cancel shape of BukkitRunnable without owning a scheduler entry
+ */
+public abstract class TaskExecutor {
+    private static final int LOD_REFRESH_INTERVAL = 20; // Every second
+
+    protected final NPCManager.NPCDetails details;
+    private final List<PhaseStagger.StaggeredTimer> timers = new ArrayList<>(4);
+    private boolean cancelled;
+    private LodTier lodTier = LodTier.FULL;
+    TaskTicker ticker; // Set when the executor is scheduled
+    boolean started; // Set by the ticker once onStart has run
+    long nextRunTick; // Managed by the ticker that owns this executor
+    long lastRunTick;
+    boolean suspended; // Parked by the ticker while the NPC's chunk is unloaded
+    long suspendedAtNanos; // Wall clock, the shard's tick counter may stall with its region
+    boolean resting; // In the ticker's delay queue between repetitions
+    long wakeTick;
+    boolean migrating; // On its way to another shard's inbox
+    long windowCostNanos; // Main-thread time since the last watchdog sample
+    double averageCostNanos; // Rolling cost per tick, kept by the watchdog
+    private boolean throttled;
+    private World lastWorld; // Where the NPC was last seen, refreshed with the level of detail
+    private int lastChunkX;
+    private int lastChunkZ;
+
+    protected TaskExecutor(NPCManager.NPCDetails details) {
+        this.details = details;
+    }
+
+    /**
+     * Gets the task this executor drives
+     */
+    protected abstract NPCTask getTask();
+
+    /**
+     * Called once when the task finishes
+     */
+    protected abstract void completeTask();
+
+    /**
+     * Called once before the first run so the executor can register its periodic work
+     */
+    protected void onStart() {
+    }
+
+    /**
+     * Called once when the executor is cancelled, to let go of shared resources
+     */
+    protected void onCancel() {
+    }
+
+    /**
+     * Executes the given number of task cycles
+     * Runs more than one cycle when ticks were skipped for level of detail or budget reasons.
+     * After each completed repetition the executor rests for the configured delay, parked
+     * in the ticker's delay queue; cycles already elapsed in this run count toward the rest
+     */
+    public void run(int cycles) {
+        if (!isNPCActive()) {
+            // Despawned with its chunk: park the task until the chunk loads again
+            if (ticker != null && ticker.suspendIfUnloaded(this)) {
+                return;
+            }
+            cancel();
+            return;
+        }
+
+        NPCTask task = getTask();
+        for (int i = 0; i < cycles; i++) {
+            int repetitions = task.getRepetitionsCompleted();
+            if (!task.executeCycle()) {
+                completeTask();
+                cancel();
+                return;
+            }
+
+            int rest = task.getConfig().getDelayBetweenRepetitions();
+            if (rest > 0 && task.getRepetitionsCompleted() > repetitions) {
+                int elapsed = cycles - i - 1;
+                if (rest > elapsed && ticker != null) {
+                    ticker.rest(this, rest - elapsed);
+                    return;
+                }
+                i += rest; // The whole rest fell inside this catch-up window
+            }
+        }
+    }
+
+    protected boolean isNPCActive() {
+        NPC npc = details.getCitizensNPC();
+        return npc != null && npc.isSpawned();
+    }
+
+    /**
+     * Registers an action to fire every period ticks until this executor is cancelled
+     * The phase is staggered from the NPC's id so NPCs started together don't fire together
+     */
+    protected final void every(int period, Runnable action) {
+        if (period <= 0 || ticker == null) {
+            return;
+        }
+        timers.add(ticker.getStagger().schedule(getNpcId(), period, () -> {
+            // Timer work counts toward this NPC's cost for the watchdog
+            long start = System.nanoTime();
+            try {
+                action.run();
+            } finally {
+                windowCostNanos += System.nanoTime() - start;
+            }
+        }));
+    }
+
+    /**
+     * Registers a sound, particle, animation or message that only plays at full detail
+     */
+    protected final void everyEffect(int period, Runnable action) {
+        every(period, () -> {
+            if (lodTier.hasEffects()) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Registers a world scan that is skipped when the NPC is only counter-simulated
+     */
+    protected final void everyScan(int period, Runnable action) {
+        every(period, () -> {
+            if (lodTier.hasScans()) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Registers the periodic level of detail refresh, called by the ticker before onStart
+     */
+    void startLodRefresh() {
+        every(LOD_REFRESH_INTERVAL, this::refreshLodTier);
+        refreshLodTier();
+    }
+
+    private void refreshLodTier() {
+        NPC npc = details.getCitizensNPC();
+        if (npc != null && npc.isSpawned() && ticker != null) {
+            Location location = npc.getEntity().getLocation();
+            lodTier = throttled ? LodTier.COUNTER_ONLY : ticker.resolveLodTier(location);
+            lastWorld = location.getWorld();
+            lastChunkX = location.getBlockX() >> 4;
+            lastChunkZ = location.getBlockZ() >> 4;
+
+            // The NPC walked into another shard's region
+            if (!ticker.ownsChunk(lastWorld, lastChunkX, lastChunkZ)) {
+                ticker.handOff(this);
+            }
+        }
+    }
+
+    /**
+     * Drops the periodic timers of a suspended executor, onStart registers them again on resume
+     */
+    void releaseTimers() {
+        if (ticker != null) {
+            for (PhaseStagger.StaggeredTimer timer : timers) {
+                ticker.getStagger().release(timer);
+            }
+        }
+        timers.clear();
+        started = false;
+    }
+
+    /**
+     * Whether the ticker has taken this executor off its array for now
+     */
+    boolean isParked() {
+        return suspended || resting || migrating;
+    }
+
+    /**
+     * Checks whether the NPC was last seen in the given chunk
+     */
+    boolean isInChunk(World world, int chunkX, int chunkZ) {
+        return lastWorld != null && lastWorld.equals(world) && lastChunkX == chunkX && lastChunkZ == chunkZ;
+    }
+
+    World getLastWorld() {
+        return lastWorld;
+    }
+
+    int getLastChunkX() {
+        return lastChunkX;
+    }
+
+    int getLastChunkZ() {
+        return lastChunkZ;
+    }
+
+    /**
+     * Cancels this executor and its timers, the ticker drops it at the end of the current tick
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        this.cancelled = true;
+        releaseTimers();
+        onCancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Pins this executor to the counter-only tier for the rest of its task
+     */
+    void throttle() {
+        throttled = true;
+        lodTier = LodTier.COUNTER_ONLY;
+    }
+
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    public double getAverageCostMillis() {
+        return averageCostNanos / 1_000_000.0;
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    public LodTier getLodTier() {
+        return lodTier;
+    }
+
+    public NPCManager.NPCDetails getDetails() {
+        return details;
+    }
+
+    /**
+     * Gets the current tick of the owning ticker
+     */
+    protected long getCurrentTick() {
+        return ticker != null ? ticker.getCurrentTick() : 0L;
+    }
+
+    public int getNpcId() {
+        return details.getCitizensId();
+    }
+}
@@ -13,6 +13,7 @@ import java.util.UUID;
 
 /**
  * Handles persistence of NPC tasks and tool inventories
+ * Saves are synchronized, since NPCs in different regions may save at once
  */
 public class TaskPersistence {
     
@@ -55,7 +56,25 @@ public class TaskPersistence {
     /**
      * Saves task queue for an NPC
      */
-    public void saveTaskQueue(int npcId, TaskQueue queue) {
+    public synchronized void saveTaskQueue(int npcId, TaskQueue queue) {
+        writeTaskQueue(npcId, queue);
+        saveTasksConfig();
+    }
+    
+    /**
+     * Saves the task queues of many NPCs with a single file write
+     */
+    public synchronized void saveTaskQueues(Map<Integer, TaskQueue> queues) {
+        for (Map.Entry<Integer, TaskQueue> entry : queues.entrySet()) {
+            writeTaskQueue(entry.getKey(), entry.getValue());
+        }
+        saveTasksConfig();
+    }
+    
+    /**
+     * Writes a task queue into the in-memory configuration without saving the file
+     */
+    private void writeTaskQueue(int npcId, TaskQueue queue) {
         String npcPath = "npcs." + npcId;
         
         // Clear existing tasks for this NPC
@@ -78,8 +97,6 @@ public class TaskPersistence {
         // Save queue metadata
         tasksConfig.set(npcPath + ".queueSize", queue.size());
         tasksConfig.set(npcPath + ".hasActiveTask", queue.hasActiveTask());
-        
-        saveTasksConfig();
     }
     
     /**
@@ -128,6 +145,8 @@ public class TaskPersistence {
         tasksConfig.set(path + ".repetitionsCompleted", task.getRepetitionsCompleted());
         tasksConfig.set(path + ".isCompleted", task.isCompleted());
         tasksConfig.set(path + ".isPaused", task.isPaused());
+        tasksConfig.set(path + ".priority", task.getConfig().getPriority());
+        tasksConfig.set(path + ".deadline", task.getConfig().getDeadline());
         
         // Save task-specific data
         if (task instanceof WoodcuttingTask) {
@@ -179,6 +198,8 @@ public class TaskPersistence {
         
         // Create task based on type
         TaskConfiguration config = createDefaultConfig(taskType);
+        config.setPriority(tasksConfig.getInt(path + ".priority", TaskConfiguration.PRIORITY_NORMAL));
+        config.setDeadline(tasksConfig.getLong(path + ".deadline", 0L));
         NPCTask task = createTask(taskType, assignedBy, config);
         
         if (task != null) {
@@ -231,22 +252,31 @@ public class TaskPersistence {
      * Creates default configuration for task type
      */
     private TaskConfiguration createDefaultConfig(String taskType) {
-        switch (taskType.toLowerCase()) {
-            case "woodcutting":
-                return TaskConfiguration.createWoodcuttingConfig();
-            case "mining":
-                return TaskConfiguration.createMiningConfig();
-            case "farming":
-                return TaskConfiguration.createFarmingConfig();
-            default:
-                return new TaskConfiguration();
-        }
+        return TaskConfiguration.createDefaultConfig(taskType);
     }
     
     /**
      * Saves NPC tool inventory
      */
-    public void saveToolInventory(int npcId, EnhancedTaskManager.NPCToolInventory inventory) {
+    public synchronized void saveToolInventory(int npcId, EnhancedTaskManager.NPCToolInventory inventory) {
+        writeToolInventory(npcId, inventory);
+        saveToolsConfig();
+    }
+    
+    /**
+     * Saves the tool inventories of many NPCs with a single file write
+     */
+    public synchronized void saveToolInventories(Map<Integer, EnhancedTaskManager.NPCToolInventory> inventories) {
+        for (Map.Entry<Integer, EnhancedTaskManager.NPCToolInventory> entry : inventories.entrySet()) {
+            writeToolInventory(entry.getKey(), entry.getValue());
+        }
+        saveToolsConfig();
+    }
+    
+    /**
+     * Writes a tool inventory into the in-memory configuration without saving the file
+     */
+    private void writeToolInventory(int npcId, EnhancedTaskManager.NPCToolInventory inventory) {
         String npcPath = "npcs." + npcId;
         
         // Clear existing tools
@@ -261,8 +291,6 @@ public class TaskPersistence {
             toolsConfig.set(toolPath + ".durability", entry.getValue().getDurability());
             index++;
         }
-        
-        saveToolsConfig();
     }
     
     /**
@@ -323,7 +351,7 @@ public class TaskPersistence {
     /**
      * Clears all data for an NPC
      */
-    public void clearNPCData(int npcId) {
+    public synchronized void clearNPCData(int npcId) {
         tasksConfig.set("npcs." + npcId, null);
         toolsConfig.set("npcs." + npcId, null);
         
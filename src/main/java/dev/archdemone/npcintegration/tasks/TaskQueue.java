@@ -4,16 +4,24 @@ import java.util.*;
 
 /**
  * Queue system for managing multiple NPC tasks
+ * Tasks are ordered by priority, then earliest deadline, then arrival order
  */
 public class TaskQueue {
-    private final Queue<NPCTask> tasks;
+    private static final Comparator<NPCTask> ORDER = Comparator
+        .comparingInt((NPCTask task) -> -task.getConfig().getPriority())
+        .thenComparingLong(task -> task.getConfig().hasDeadline() ? task.getConfig().getDeadline() : Long.MAX_VALUE)
+        .thenComparingLong(task -> task.queueSequence);
+    
+    private final PriorityQueue<NPCTask> tasks;
     private NPCTask currentTask;
     private final int maxQueueSize;
+    private long nextSequence;
     
     public TaskQueue() {
-        this.tasks = new LinkedList<>();
+        this.tasks = new PriorityQueue<>(ORDER);
         this.currentTask = null;
         this.maxQueueSize = 10; // Maximum 10 tasks in queue
+        this.nextSequence = 1;
     }
     
     /**
@@ -23,10 +31,38 @@ public class TaskQueue {
         if (tasks.size() >= maxQueueSize) {
             return false; // Queue is full
         }
+        task.queueSequence = nextSequence++;
         tasks.offer(task);
         return true;
     }
     
+    /**
+     * Puts the current task back in the queue with its progress and original place in line
+     * A preempted task is never dropped, even when the queue is full
+     * @return the preempted task, or null if there was none
+     */
+    public NPCTask requeueCurrentTask() {
+        NPCTask preempted = currentTask;
+        if (preempted == null) {
+            return null;
+        }
+        currentTask = null;
+        if (preempted.queueSequence == 0) {
+            preempted.queueSequence = nextSequence++;
+        }
+        tasks.offer(preempted);
+        return preempted;
+    }
+    
+    /**
+     * Checks if the next queued task outranks an interruptible current task
+     */
+    public boolean shouldPreempt() {
+        NPCTask next = tasks.peek();
+        return currentTask != null && next != null && currentTask.getConfig().canInterrupt() &&
+            next.getConfig().getPriority() > currentTask.getConfig().getPriority();
+    }
+    
     /**
      * Gets the next task from the queue
      */
@@ -85,14 +121,16 @@ public class TaskQueue {
     }
     
     /**
-     * Gets all tasks in the queue (for display purposes)
+     * Gets all tasks in the queue in the order they will run (for display purposes)
      */
     public List<NPCTask> getAllTasks() {
         List<NPCTask> allTasks = new ArrayList<>();
         if (currentTask != null) {
             allTasks.add(currentTask);
         }
-        allTasks.addAll(tasks);
+        List<NPCTask> queued = new ArrayList<>(tasks);
+        queued.sort(ORDER);
+        allTasks.addAll(queued);
         return allTasks;
     }
     
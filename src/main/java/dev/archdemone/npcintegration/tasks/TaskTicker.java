@@ -0,0 +1,560 @@
+package dev.archdemone.npcintegration.tasks;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+
+/**
+ * Plugin-owned tick driver for the NPC task executors of one {@link TaskEngine} shard
+ * One scheduler entry iterates a flat array of executors, so scheduler overhead
+ * stays constant no matter how many NPCs are working. Interval-driven work
+ * (effects, scans, progress reports) lives on a shared {@link TimingWheel},
+ * phase-staggered per NPC by {@link PhaseStagger}. Executors far from players run
+ * at a lower {@link LodTier} rate and catch up on skipped cycles in one go.
+ * Tasks whose NPC is in an unloaded chunk are parked off the array entirely and
+ * have their elapsed progress computed in one step when the chunk loads again.
+ * Tasks resting between repetitions wait in a delay queue ordered by wake-up tick.
+ * Each executor's cost is tracked by a {@link TaskWatchdog} that throttles runaways
+ */
+public class TaskTicker {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long RESPAWN_GRACE_TICKS = 20; // Lets Citizens respawn the NPC after a chunk load
+    private static final long NANOS_PER_TICK = 50_000_000L;
+    private static final int MAX_COMMANDS_PER_TICK = 256; // Bounds a chat flood, the rest wait a tick
+
+    private final NPCIntegrationPlugin plugin;
+    private final TaskEngine engine;
+    private final World world; // Null for the single shard of a classic server
+    private final int shardX;
+    private final int shardZ;
+    private final TimingWheel wheel;
+    private final TickBudget budget;
+    private final PhaseStagger stagger;
+    private final CommandInbox inbox;
+    private final TaskWatchdog watchdog;
+    private final BlockMutationQueue mutations;
+    private final double fullDetailDistanceSquared;
+    private final double reducedDetailDistanceSquared;
+    private final Map<World, Map<Long, List<TaskExecutor>>> suspended;
+    private final PriorityQueue<TaskExecutor> resting; // Min-heap by wake-up tick
+    private TaskExecutor[] executors;
+    private int size;
+    private int cursor; // Round-robin start for the next tick
+    private long currentTick;
+    private ExecutionScheduler.Handle driver;
+
+    public TaskTicker(NPCIntegrationPlugin plugin, TaskEngine engine, World world, int shardX, int shardZ) {
+        this.plugin = plugin;
+        this.engine = engine;
+        this.world = world;
+        this.shardX = shardX;
+        this.shardZ = shardZ;
+        this.wheel = new TimingWheel();
+        this.stagger = new PhaseStagger(wheel);
+        this.inbox = new CommandInbox();
+        this.watchdog = new TaskWatchdog(plugin);
+        this.mutations = new BlockMutationQueue(plugin);
+        double fullDistance = plugin.getConfig().getDouble("performance.lod.full-distance", 48.0);
+        double reducedDistance = plugin.getConfig().getDouble("performance.lod.reduced-distance", 160.0);
+        this.fullDetailDistanceSquared = fullDistance * fullDistance;
+        this.reducedDetailDistanceSquared = reducedDistance * reducedDistance;
+        this.budget = new TickBudget(plugin.getConfig().getDouble("performance.tick-budget-ms", 2.0));
+        this.suspended = new HashMap<>();
+        this.resting = new PriorityQueue<>((a, b) -> Long.compare(a.wakeTick, b.wakeTick));
+        this.executors = new TaskExecutor[INITIAL_CAPACITY];
+        this.size = 0;
+        this.cursor = 0;
+        this.currentTick = 0;
+    }
+
+    /**
+     * Starts the driver, running every tick on the thread that owns this shard
+     */
+    public void start() {
+        if (driver != null) {
+            return;
+        }
+
+        driver = engine.getScheduler().runEveryTick(world, anchorChunkX(), anchorChunkZ(), this::tick);
+    }
+
+    /**
+     * Stops the driver and cancels every registered executor
+     */
+    public void stop() {
+        if (driver != null) {
+            driver.cancel();
+            driver = null;
+        }
+
+        for (int i = 0; i < size; i++) {
+            executors[i].cancel();
+            executors[i] = null;
+        }
+        size = 0;
+        cursor = 0;
+        inbox.clear();
+
+        for (Map<Long, List<TaskExecutor>> chunks : suspended.values()) {
+            for (List<TaskExecutor> parked : chunks.values()) {
+                parked.forEach(TaskExecutor::cancel);
+            }
+        }
+        suspended.clear();
+
+        resting.forEach(TaskExecutor::cancel);
+        resting.clear();
+        mutations.clear();
+    }
+
+    /**
+     * Registers an executor from any thread, through the inbox unless called on this shard's own thread
+     */
+    void scheduleFromAnyThread(TaskExecutor executor, long delay) {
+        if (engine.getScheduler().isOwnedByCurrentThread(world, anchorChunkX(), anchorChunkZ())) {
+            schedule(executor, delay);
+        } else {
+            inbox.submit(() -> schedule(executor, delay));
+        }
+    }
+
+    /**
+     * Registers an executor to run after the given delay, then at its level of detail rate
+     */
+    public void schedule(TaskExecutor executor, long delay) {
+        executor.ticker = this;
+        executor.nextRunTick = currentTick + Math.max(1L, delay);
+        add(executor);
+    }
+
+    private void add(TaskExecutor executor) {
+        if (size == executors.length) {
+            executors = Arrays.copyOf(executors, size * 2);
+        }
+        executors[size++] = executor;
+    }
+
+    /**
+     * Parks the executors of offline-capable tasks whose NPC is in the unloading chunk
+     */
+    public void suspendChunk(Chunk chunk) {
+        boolean changed = false;
+        for (int i = 0; i < size; i++) {
+            TaskExecutor executor = executors[i];
+            if (!executor.isCancelled() && !executor.isParked() &&
+                executor.isInChunk(chunk.getWorld(), chunk.getX(), chunk.getZ()) &&
+                executor.getTask().supportsOfflineProgress()) {
+                suspend(executor);
+                changed = true;
+            }
+        }
+
+        // Take them off the array now so a quick reload can't add them twice
+        if (changed) {
+            compact();
+        }
+    }
+
+    /**
+     * Parks an executor whose NPC despawned because its last known chunk unloaded
+     * Covers servers where Citizens despawns the NPC before the chunk unload event
+     * @return true if the executor was suspended, false if it should be cancelled
+     */
+    boolean suspendIfUnloaded(TaskExecutor executor) {
+        World world = executor.getLastWorld();
+        if (world == null || !executor.getTask().supportsOfflineProgress() ||
+            world.isChunkLoaded(executor.getLastChunkX(), executor.getLastChunkZ())) {
+            return false;
+        }
+        suspend(executor);
+        return true;
+    }
+
+    private void suspend(TaskExecutor executor) {
+        executor.suspended = true;
+        executor.suspendedAtNanos = System.nanoTime();
+        executor.releaseTimers();
+        suspended.computeIfAbsent(executor.getLastWorld(), world -> new HashMap<>())
+            .computeIfAbsent(chunkKey(executor.getLastChunkX(), executor.getLastChunkZ()), key -> new ArrayList<>(2))
+            .add(executor);
+    }
+
+    /**
+     * Applies the progress made while a chunk was unloaded and puts its executors back on the array
+     * Catch-up runs through {@link NPCTask#simulateElapsed}, which only visits the ticks that yield
+     */
+    public void resumeChunk(Chunk chunk) {
+        Map<Long, List<TaskExecutor>> chunks = suspended.get(chunk.getWorld());
+        if (chunks == null) {
+            return;
+        }
+        List<TaskExecutor> parked = chunks.remove(chunkKey(chunk.getX(), chunk.getZ()));
+        if (chunks.isEmpty()) {
+            suspended.remove(chunk.getWorld());
+        }
+        if (parked == null) {
+            return;
+        }
+
+        for (TaskExecutor executor : parked) {
+            if (executor.isCancelled()) {
+                continue;
+            }
+
+            try {
+                // Elapsed time comes from the wall clock; under a regionized scheduler this shard's counter barely moves
+                // while its region is idle. A finished task completes on its first run once the NPC has respawned
+                long elapsedTicks = (System.nanoTime() - executor.suspendedAtNanos) / NANOS_PER_TICK;
+                executor.getTask().simulateElapsed((int) Math.min(Integer.MAX_VALUE, elapsedTicks));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Task catch-up for NPC " + executor.getNpcId() + " failed", e);
+            }
+
+            executor.suspended = false;
+            executor.lastRunTick = currentTick;
+            executor.nextRunTick = currentTick + RESPAWN_GRACE_TICKS;
+            add(executor);
+        }
+    }
+
+    /**
+     * Parks an executor for the rest between two repetitions
+     * It leaves the executor array, so a resting task costs nothing until it wakes
+     * and works again on the tick after the rest ends
+     */
+    void rest(TaskExecutor executor, int restTicks) {
+        executor.resting = true;
+        executor.wakeTick = currentTick + restTicks + 1;
+        executor.releaseTimers();
+        resting.offer(executor);
+    }
+
+    /**
+     * Moves executors whose rest is over back onto the array, due this tick
+     */
+    private void wakeRested() {
+        TaskExecutor executor;
+        while ((executor = resting.peek()) != null && executor.wakeTick <= currentTick) {
+            resting.poll();
+            executor.resting = false;
+            if (executor.isCancelled()) {
+                continue;
+            }
+
+            // Rest ticks are not work ticks, so the first run after waking is a single cycle
+            executor.lastRunTick = currentTick - 1;
+            executor.nextRunTick = currentTick;
+            add(executor);
+        }
+    }
+
+    /**
+     * Checks whether a chunk still belongs to this shard
+     */
+    boolean ownsChunk(World chunkWorld, int chunkX, int chunkZ) {
+        return engine.owns(this, chunkWorld, chunkX, chunkZ);
+    }
+
+    boolean isShardOf(World shardWorld, int x, int z) {
+        return world != null && world.equals(shardWorld) && shardX == x && shardZ == z;
+    }
+
+    /**
+     * Passes an executor whose NPC walked out of this shard to the shard it is in now
+     * The executor leaves the array here and joins the other shard's on that shard's thread
+     */
+    void handOff(TaskExecutor executor) {
+        executor.migrating = true;
+        executor.releaseTimers();
+
+        TaskTicker destination = engine.shardFor(executor.getLastWorld(), executor.getLastChunkX(), executor.getLastChunkZ());
+        destination.getInbox().submit(() -> destination.adopt(executor));
+    }
+
+    /**
+     * Takes over an executor handed off by another shard
+     */
+    private void adopt(TaskExecutor executor) {
+        executor.migrating = false;
+        if (executor.isCancelled()) {
+            return;
+        }
+
+        // Tick counts differ between shards, so restart the catch-up clock here
+        executor.ticker = this;
+        executor.lastRunTick = currentTick - 1;
+        executor.nextRunTick = currentTick;
+        add(executor);
+    }
+
+    private int anchorChunkX() {
+        return shardX << TaskEngine.SHARD_CHUNK_SHIFT;
+    }
+
+    private int anchorChunkZ() {
+        return shardZ << TaskEngine.SHARD_CHUNK_SHIFT;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Runs one tick for every due executor, fires due wheel timers, then drops cancelled executors
+     * Commands from other threads are applied first, in the order they were submitted.
+     * Work is cut off once the tick budget is spent; executors resume from where the
+     * previous tick stopped and deferred timers fire before anything else
+     */
+    public void tick() {
+        currentTick++;
+        budget.begin();
+
+        drainInbox();
+        wakeRested();
+
+        try {
+            wheel.runDeferred(budget);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Task timer failed", e);
+        }
+
+        // Executors registered during this tick are due on a later one
+        int count = size;
+        int start = cursor < count ? cursor : 0;
+        cursor = 0;
+        for (int n = 0; n < count; n++) {
+            int i = start + n;
+            if (i >= count) {
+                i -= count;
+            }
+
+            TaskExecutor executor = executors[i];
+            if (!isDue(executor)) {
+                continue;
+            }
+
+            if (budget.isExhausted()) {
+                cursor = i;
+                deferRemaining(start, n, count);
+                break;
+            }
+
+            try {
+                if (!executor.started) {
+                    executor.started = true;
+                    executor.startLodRefresh();
+                    if (executor.isParked()) {
+                        continue; // Handed off to the shard it actually stands in
+                    }
+                    executor.onStart();
+                }
+
+                // Catch up on every tick skipped since the last run
+                int cycles = executor.lastRunTick == 0 ? 1 : (int) (currentTick - executor.lastRunTick);
+                executor.lastRunTick = currentTick;
+                executor.nextRunTick = currentTick + executor.getLodTier().getTickInterval();
+                long runStart = System.nanoTime();
+                try {
+                    executor.run(cycles);
+                } finally {
+                    executor.windowCostNanos += System.nanoTime() - runStart;
+                }
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Task executor " + executor.getClass().getSimpleName() +
+                    " failed and was cancelled", e);
+                executor.cancel();
+            }
+        }
+
+        try {
+            wheel.advance(budget);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Task timer failed", e);
+        }
+
+        // Block changes the executors asked for, within what is left of the budget
+        try {
+            mutations.drain(budget);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Queued block change failed", e);
+        }
+
+        if (currentTick % TaskWatchdog.SAMPLE_INTERVAL == 0) {
+            sampleCosts();
+        }
+
+        compact();
+        budget.end();
+    }
+
+    /**
+     * Hands every active executor's cost to the watchdog and pauses the ones it flags
+     */
+    private void sampleCosts() {
+        for (int i = 0; i < size; i++) {
+            TaskExecutor executor = executors[i];
+            if (!executor.isCancelled() && !executor.isParked() && watchdog.sample(executor)) {
+                rest(executor, watchdog.getPauseTicks());
+            }
+        }
+    }
+
+    /**
+     * Applies queued commands as one batch on the main thread
+     */
+    private void drainInbox() {
+        Runnable command;
+        for (int n = 0; n < MAX_COMMANDS_PER_TICK && (command = inbox.poll()) != null; n++) {
+            try {
+                command.run();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Task command failed", e);
+            }
+        }
+    }
+
+    private boolean isDue(TaskExecutor executor) {
+        return !executor.isCancelled() && !executor.isParked() && executor.nextRunTick <= currentTick;
+    }
+
+    /**
+     * Records every due executor from position n onwards as deferred to the next tick
+     */
+    private void deferRemaining(int start, int n, int count) {
+        for (; n < count; n++) {
+            int i = start + n;
+            if (i >= count) {
+                i -= count;
+            }
+            if (isDue(executors[i])) {
+                budget.defer();
+            }
+        }
+    }
+
+    /**
+     * Picks the level of detail for an NPC from the nearest player in its world
+     */
+    public LodTier resolveLodTier(Location location) {
+        World world = location.getWorld();
+        if (world == null) {
+            return LodTier.COUNTER_ONLY;
+        }
+
+        double nearest = Double.MAX_VALUE;
+        for (Player player : world.getPlayers()) {
+            nearest = Math.min(nearest, player.getLocation().distanceSquared(location));
+        }
+
+        if (nearest <= fullDetailDistanceSquared) {
+            return LodTier.FULL;
+        }
+        if (nearest <= reducedDetailDistanceSquared) {
+            return LodTier.REDUCED;
+        }
+        return LodTier.COUNTER_ONLY;
+    }
+
+    /**
+     * Counts active executors at the given level of detail
+     */
+    public int countAtTier(LodTier tier) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (executors[i].getLodTier() == tier) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes cancelled and parked executors in place, preserving order and the round-robin cursor
+     */
+    private void compact() {
+        int write = 0;
+        int newCursor = 0;
+        for (int read = 0; read < size; read++) {
+            if (read == cursor) {
+                newCursor = write;
+            }
+            TaskExecutor executor = executors[read];
+            if (!executor.isCancelled() && !executor.isParked()) {
+                executors[write++] = executor;
+            }
+        }
+        Arrays.fill(executors, write, size, null);
+        size = write;
+        cursor = newCursor < size ? newCursor : 0;
+    }
+
+    public TickBudget getBudget() {
+        return budget;
+    }
+
+    public BlockMutationQueue getMutations() {
+        return mutations;
+    }
+
+    public TaskWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Counts active executors the watchdog has demoted
+     */
+    public int countThrottled() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (executors[i].isThrottled()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public CommandInbox getInbox() {
+        return inbox;
+    }
+
+    public PhaseStagger getStagger() {
+        return stagger;
+    }
+
+    public TimingWheel getWheel() {
+        return wheel;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int getActiveCount() {
+        return size;
+    }
+
+    public int getRestingCount() {
+        return resting.size();
+    }
+
+    public int getSuspendedCount() {
+        int count = 0;
+        for (Map<Long, List<TaskExecutor>> chunks : suspended.values()) {
+            for (List<TaskExecutor> parked : chunks.values()) {
+                count += parked.size();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,85 @@
+package dev.archdemone.npcintegration.tasks;
+
+import dev.archdemone.npcintegration.NPCIntegrationPlugin;
+import dev.archdemone.npcintegration.utils.MessageUtil;
+import org.bukkit.entity.Player;
+
+/**
+ * Keeps a rolling main-thread cost per NPC task and throttles the ones that run away
+ * An executor over the threshold is first demoted to the counter-only rate (no scans or
+ * effects); if it is still over, it is paused for a while. Both steps alert the console
+ * and online admins with the NPC id and task type
+ */
+public class TaskWatchdog {
+
+    public static final int SAMPLE_INTERVAL = 20; // Ticks per cost sample
+    private static final double SMOOTHING = 0.3; // Weight of the newest sample
+
+    private final NPCIntegrationPlugin plugin;
+    private final long thresholdNanos;
+    private final int pauseTicks;
+    private long demotions;
+    private long pauses;
+
+    public TaskWatchdog(NPCIntegrationPlugin plugin) {
+        this.plugin = plugin;
+        this.thresholdNanos = (long) (plugin.getConfig().getDouble("performance.watchdog.max-ms-per-tick", 0.5) * 1_000_000L);
+        this.pauseTicks = plugin.getConfig().getInt("performance.watchdog.pause-ticks", 1200);
+    }
+
+    /**
+     * Folds the cost each executor accumulated since the last sample into its rolling average
+     * @return true if the executor should be paused
+     */
+    boolean sample(TaskExecutor executor) {
+        double perTick = (double) executor.windowCostNanos / SAMPLE_INTERVAL;
+        executor.windowCostNanos = 0;
+        executor.averageCostNanos = executor.averageCostNanos * (1 - SMOOTHING) + perTick * SMOOTHING;
+
+        if (thresholdNanos <= 0 || executor.averageCostNanos <= thresholdNanos) {
+            return false;
+        }
+
+        if (!executor.isThrottled()) {
+            executor.throttle();
+            demotions++;
+            alert(executor, "demoted to counter-only ticking");
+            return false;
+        }
+
+        pauses++;
+        alert(executor, "paused for " + (pauseTicks / 20) + "s");
+        // Start over after the pause so one bad window doesn't pause it again straight away
+        executor.averageCostNanos = 0;
+        return true;
+    }
+
+    private void alert(TaskExecutor executor, String action) {
+        String message = "NPC #" + executor.getNpcId() + " (" + executor.getDetails().getName() + ") " +
+            executor.getTask().getType() + " task is using " +
+            String.format("%.2f", executor.averageCostNanos / 1_000_000.0) + " ms/tick, " + action;
+        plugin.getLogger().warning("Task watchdog: " + message);
+
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (player.hasPermission("npcintegration.admin")) {
+                MessageUtil.sendWarning(player, "Watchdog: " + message);
+            }
+        }
+    }
+
+    public int getPauseTicks() {
+        return pauseTicks;
+    }
+
+    public double getThresholdMillis() {
+        return thresholdNanos / 1_000_000.0;
+    }
+
+    public long getDemotions() {
+        return demotions;
+    }
+
+    public long getPauses() {
+        return pauses;
+    }
+}
@@ -0,0 +1,76 @@
+package dev.archdemone.npcintegration.tasks;
+
+/**
+ * Per-tick time budget for task engine work, with metrics
+ * A budget of 0 or less disables the limit while still recording timings
+ */
+public class TickBudget {
+
+    private final long budgetNanos;
+    private long tickStart;
+    private long tickDeadline;
+    private int tickDeferrals;
+
+    // Metrics
+    private long ticks;
+    private long overruns;
+    private long deferrals;
+    private int lastTickDeferrals;
+    private long lastTickNanos;
+    private long maxTickNanos;
+    private double averageTickNanos;
+
+    public TickBudget(double budgetMillis) {
+        this.budgetNanos = (long) (budgetMillis * 1_000_000L);
+    }
+
+    /**
+     * Starts measuring a new tick
+     */
+    public void begin() {
+        tickStart = System.nanoTime();
+        tickDeadline = budgetNanos > 0 ? tickStart + budgetNanos : Long.MAX_VALUE;
+        tickDeferrals = 0;
+    }
+
+    /**
+     * Checks whether the current tick has used up its budget
+     */
+    public boolean isExhausted() {
+        return budgetNanos > 0 && System.nanoTime() - tickDeadline >= 0;
+    }
+
+    /**
+     * Records a unit of work pushed to the next tick
+     */
+    public void defer() {
+        tickDeferrals++;
+        deferrals++;
+    }
+
+    /**
+     * Finishes measuring the current tick
+     */
+    public void end() {
+        long elapsed = System.nanoTime() - tickStart;
+        ticks++;
+        lastTickNanos = elapsed;
+        lastTickDeferrals = tickDeferrals;
+        maxTickNanos = Math.max(maxTickNanos, elapsed);
+        averageTickNanos = ticks == 1 ? elapsed : averageTickNanos * 0.95 + elapsed * 0.05;
+
+        if (budgetNanos > 0 && elapsed > budgetNanos) {
+            overruns++;
+        }
+    }
+
+    // Getters
+    public double getBudgetMillis() { return budgetNanos / 1_000_000.0; }
+    public long getTicks() { return ticks; }
+    public long getOverruns() { return overruns; }
+    public long getDeferrals() { return deferrals; }
+    public int getLastTickDeferrals() { return lastTickDeferrals; }
+    public double getLastTickMillis() { return lastTickNanos / 1_000_000.0; }
+    public double getMaxTickMillis() { return maxTickNanos / 1_000_000.0; }
+    public double getAverageTickMillis() { return averageTickNanos / 1_000_000.0; }
+}
@@ -0,0 +1,216 @@
+package dev.archdemone.npcintegration.tasks;
+
+/**
+ * Hierarchical timing wheel for tick-based deadlines
+ * Level 0 has one slot per tick for the next 256 ticks, level 1 has one slot per
+ * 256 ticks for the next 64 rotations, and anything further waits in an overflow list.
+ * Advancing costs O(timers due) instead of O(timers registered)
+ * Timers that miss their tick because of a {@link TickBudget} are deferred, not dropped
+ */
+public class TimingWheel {
+
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL0_SIZE = 1 << LEVEL0_BITS; // 256 ticks
+    private static final int LEVEL0_MASK = LEVEL0_SIZE - 1;
+    private static final int LEVEL1_SIZE = 64; // 64 * 256 = 16384 ticks
+    private static final int LEVEL1_MASK = LEVEL1_SIZE - 1;
+
+    private final WheelTimer[] level0;
+    private final WheelTimer[] level1;
+    private WheelTimer overflow;
+    private WheelTimer deferredHead;
+    private WheelTimer deferredTail;
+    private long currentTick;
+
+    public TimingWheel() {
+        this.level0 = new WheelTimer[LEVEL0_SIZE];
+        this.level1 = new WheelTimer[LEVEL1_SIZE];
+        this.overflow = null;
+        this.currentTick = 0;
+    }
+
+    /**
+     * Schedules a one-shot action to fire after the given number of ticks
+     */
+    public WheelTimer schedule(long delay, Runnable action) {
+        return scheduleRepeating(delay, 0L, action);
+    }
+
+    /**
+     * Schedules an action to fire after the given delay and then every period ticks
+     * A period of 0 makes the timer one-shot
+     */
+    public WheelTimer scheduleRepeating(long delay, long period, Runnable action) {
+        WheelTimer timer = new WheelTimer(action, currentTick + Math.max(1L, delay), Math.max(0L, period));
+        place(timer);
+        return timer;
+    }
+
+    /**
+     * Advances the wheel by one tick and fires every timer due on it
+     */
+    public void advance() {
+        advance(null);
+    }
+
+    /**
+     * Advances the wheel by one tick and fires timers due on it until the budget runs out
+     * Timers left over are deferred and fire first on the next call to {@link #runDeferred}
+     */
+    public void advance(TickBudget budget) {
+        currentTick++;
+        int slot = (int) (currentTick & LEVEL0_MASK);
+
+        if (slot == 0) {
+            int upperSlot = (int) ((currentTick >>> LEVEL0_BITS) & LEVEL1_MASK);
+            if (upperSlot == 0) {
+                WheelTimer pending = overflow;
+                overflow = null;
+                cascade(pending);
+            }
+
+            WheelTimer pending = level1[upperSlot];
+            level1[upperSlot] = null;
+            cascade(pending);
+        }
+
+        WheelTimer due = level0[slot];
+        level0[slot] = null;
+        fire(due, budget);
+    }
+
+    /**
+     * Fires timers deferred by an earlier over-budget tick, oldest first
+     */
+    public void runDeferred(TickBudget budget) {
+        WheelTimer pending = deferredHead;
+        deferredHead = null;
+        deferredTail = null;
+        fire(pending, budget);
+    }
+
+    /**
+     * Fires a detached list of timers
+     * A timer whose action throws is cancelled; the first failure is rethrown
+     * once every other timer in the list has been handled
+     */
+    private void fire(WheelTimer timer, TickBudget budget) {
+        RuntimeException failure = null;
+        while (timer != null) {
+            WheelTimer next = timer.next;
+            timer.next = null;
+
+            if (!timer.cancelled) {
+                if (budget != null && budget.isExhausted()) {
+                    budget.defer();
+                    defer(timer);
+                    timer = next;
+                    continue;
+                }
+
+                try {
+                    timer.action.run();
+                } catch (RuntimeException e) {
+                    timer.cancelled = true;
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+
+                if (timer.period > 0 && !timer.cancelled) {
+                    // A deferred timer keeps its phase unless it fell a whole period behind
+                    timer.deadline = Math.max(timer.deadline + timer.period, currentTick + 1);
+                    place(timer);
+                }
+            }
+
+            timer = next;
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void defer(WheelTimer timer) {
+        if (deferredTail == null) {
+            deferredHead = timer;
+        } else {
+            deferredTail.next = timer;
+        }
+        deferredTail = timer;
+    }
+
+    /**
+     * Re-places timers from a higher level, dropping cancelled ones
+     */
+    private void cascade(WheelTimer timer) {
+        while (timer != null) {
+            WheelTimer next = timer.next;
+            timer.next = null;
+            if (!timer.cancelled) {
+                place(timer);
+            }
+            timer = next;
+        }
+    }
+
+    private void place(WheelTimer timer) {
+        long delta = timer.deadline - currentTick;
+        if (delta < LEVEL0_SIZE) {
+            int slot = (int) (timer.deadline & LEVEL0_MASK);
+            timer.next = level0[slot];
+            level0[slot] = timer;
+            return;
+        }
+
+        long rotations = (timer.deadline >>> LEVEL0_BITS) - (currentTick >>> LEVEL0_BITS);
+        if (rotations < LEVEL1_SIZE) {
+            int slot = (int) ((timer.deadline >>> LEVEL0_BITS) & LEVEL1_MASK);
+            timer.next = level1[slot];
+            level1[slot] = timer;
+            return;
+        }
+
+        timer.next = overflow;
+        overflow = timer;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * A scheduled entry in the wheel
+     * Cancellation is lazy: the entry is dropped when its slot is next visited
+     */
+    public static final class WheelTimer {
+        private final Runnable action;
+        private final long period;
+        private long deadline;
+        private boolean cancelled;
+        private WheelTimer next;
+
+        private WheelTimer(Runnable action, long deadline, long period) {
+            this.action = action;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public long getPeriod() {
+            return period;
+        }
+    }
+}
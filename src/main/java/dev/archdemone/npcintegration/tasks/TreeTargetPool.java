@@ -0,0 +1,253 @@
+package dev.archdemone.npcintegration.tasks;
+
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Shared pool of tree targets discovered by woodcutter NPCs
+ * Targets are grouped per chunk column so neighbouring woodcutters reuse each other's
+ * scans, and a chunk is only rescanned once its results go stale. Each column holds the
+ * trees of its whole height, so woodcutters at any level can share it; claims are
+ * limited by distance instead. A column is forgotten when its chunk unloads. Each
+ * target can be reserved by one NPC at a time, keyed by packed block position.
+ * Ages are measured in wall-clock ticks and every method is synchronized, since
+ * woodcutters on different shards and scan callbacks share one pool
+ */
+public class TreeTargetPool {
+
+    public static final long NO_TARGET = Long.MIN_VALUE;
+    private static final long SCAN_TTL = 1200; // Ticks before a chunk's scan results go stale
+    private static final long RESERVATION_TTL = 2400; // Ticks before an unrenewed claim lapses
+    private static final long NANOS_PER_TICK = 50_000_000L;
+
+    private final Map<UUID, Map<Long, Cell>> cells;
+    private final Map<UUID, Map<Long, Reservation>> reservations;
+    private final Map<Integer, Reservation> claims;
+
+    public TreeTargetPool() {
+        this.cells = new HashMap<>();
+        this.reservations = new HashMap<>();
+        this.claims = new HashMap<>();
+    }
+
+    /**
+     * Claims the rescan of a chunk whose results are missing or stale
+     * The chunk counts as scanned from now on, so only one woodcutter scans it
+     * @return false if the chunk's results are still fresh or another scan is under way
+     */
+    public synchronized boolean beginScan(World world, int chunkX, int chunkZ) {
+        long now = currentTick();
+        Map<Long, Cell> worldCells = cells.computeIfAbsent(world.getUID(), id -> new HashMap<>());
+        long key = BlockPosUtil.chunkKey(chunkX, chunkZ);
+        Cell cell = worldCells.get(key);
+        if (cell == null) {
+            cell = new Cell();
+            worldCells.put(key, cell);
+        } else if (now - cell.scannedTick < SCAN_TTL) {
+            return false;
+        }
+        cell.scannedTick = now; // A scan that never publishes just lapses after the TTL
+        return true;
+    }
+    
+    /**
+     * Replaces a chunk's targets with the results of a fresh scan
+     */
+    public synchronized void publish(World world, int chunkX, int chunkZ, long[] targets, int from, int to) {
+        Cell cell = cells.computeIfAbsent(world.getUID(), id -> new HashMap<>())
+            .computeIfAbsent(BlockPosUtil.chunkKey(chunkX, chunkZ), key -> new Cell());
+        cell.targets = Arrays.copyOfRange(targets, from, to);
+        cell.count = to - from;
+        cell.scannedTick = currentTick();
+    }
+
+    /**
+     * Forgets the targets of an unloading chunk, claims on them lapse unless renewed
+     */
+    public synchronized void forgetChunk(World world, int chunkX, int chunkZ) {
+        Map<Long, Cell> worldCells = cells.get(world.getUID());
+        if (worldCells != null && worldCells.remove(BlockPosUtil.chunkKey(chunkX, chunkZ)) != null &&
+            worldCells.isEmpty()) {
+            cells.remove(world.getUID());
+        }
+    }
+
+    /**
+     * Reserves the nearest unclaimed target within the radius for an NPC
+     * Any target the NPC held before is released
+     * @return the packed block position, or {@link #NO_TARGET}
+     */
+    public synchronized long claimNearest(World world, int x, int y, int z, int radius, int npcId) {
+        release(npcId);
+        long now = currentTick();
+
+        Map<Long, Cell> worldCells = cells.get(world.getUID());
+        if (worldCells == null) {
+            return NO_TARGET;
+        }
+        Map<Long, Reservation> worldReservations = reservations.get(world.getUID());
+
+        long best = NO_TARGET;
+        long bestDistance = (long) radius * radius;
+        int centerChunkX = x >> 4;
+        int centerChunkZ = z >> 4;
+        int lastRing = (radius >> 4) + 1;
+
+        // Visit chunks in rings outward and stop once a ring is farther than the best so far
+        for (int ring = 0; ring <= lastRing; ring++) {
+            if (ring > 1) {
+                long gap = (long) (ring - 1) * 16 + 1;
+                if (gap * gap > bestDistance) {
+                    break;
+                }
+            }
+
+            for (int dx = -ring; dx <= ring; dx++) {
+                int step = Math.abs(dx) == ring ? 1 : 2 * ring;
+                for (int dz = -ring; dz <= ring; dz += step) {
+                    Cell cell = worldCells.get(BlockPosUtil.chunkKey(centerChunkX + dx, centerChunkZ + dz));
+                    if (cell == null) {
+                        continue;
+                    }
+
+                    for (int i = 0; i < cell.count; i++) {
+                        long target = cell.targets[i];
+                        long tx = BlockPosUtil.unpackX(target) - x;
+                        long ty = BlockPosUtil.unpackY(target) - y;
+                        long tz = BlockPosUtil.unpackZ(target) - z;
+                        long distance = tx * tx + ty * ty + tz * tz;
+                        if (distance <= bestDistance && !isReserved(worldReservations, target, now)) {
+                            best = target;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (best != NO_TARGET) {
+            Reservation reservation = new Reservation(world.getUID(), best, npcId, now);
+            reservations.computeIfAbsent(world.getUID(), id -> new HashMap<>()).put(best, reservation);
+            claims.put(npcId, reservation);
+        }
+        return best;
+    }
+
+    private boolean isReserved(Map<Long, Reservation> worldReservations, long target, long now) {
+        if (worldReservations == null) {
+            return false;
+        }
+        Reservation reservation = worldReservations.get(target);
+        return reservation != null && now - reservation.renewedTick < RESERVATION_TTL;
+    }
+
+    /**
+     * Keeps an NPC's claim alive
+     * @return false if the NPC no longer holds a claim
+     */
+    public synchronized boolean renew(int npcId) {
+        Reservation reservation = claims.get(npcId);
+        if (reservation == null) {
+            return false;
+        }
+
+        Map<Long, Reservation> worldReservations = reservations.get(reservation.worldId);
+        if (worldReservations == null || worldReservations.get(reservation.target) != reservation) {
+            // Lapsed and taken over by another NPC
+            claims.remove(npcId);
+            return false;
+        }
+        reservation.renewedTick = currentTick();
+        return true;
+    }
+
+    /**
+     * Releases the target an NPC holds, if any
+     */
+    public synchronized void release(int npcId) {
+        Reservation reservation = claims.remove(npcId);
+        if (reservation == null) {
+            return;
+        }
+
+        Map<Long, Reservation> worldReservations = reservations.get(reservation.worldId);
+        if (worldReservations != null) {
+            worldReservations.remove(reservation.target, reservation);
+            if (worldReservations.isEmpty()) {
+                reservations.remove(reservation.worldId);
+            }
+        }
+    }
+
+    /**
+     * Drops a target that turned out to be gone, along with any claim on it
+     */
+    public synchronized void remove(World world, long target) {
+        Map<Long, Cell> worldCells = cells.get(world.getUID());
+        Cell cell = worldCells != null ?
+            worldCells.get(BlockPosUtil.chunkKey(BlockPosUtil.unpackX(target) >> 4, BlockPosUtil.unpackZ(target) >> 4)) : null;
+        if (cell != null) {
+            for (int i = 0; i < cell.count; i++) {
+                if (cell.targets[i] == target) {
+                    cell.targets[i] = cell.targets[--cell.count];
+                    break;
+                }
+            }
+        }
+
+        Map<Long, Reservation> worldReservations = reservations.get(world.getUID());
+        Reservation reservation = worldReservations != null ? worldReservations.remove(target) : null;
+        if (reservation != null) {
+            claims.remove(reservation.npcId, reservation);
+        }
+    }
+
+    public synchronized int getTargetCount() {
+        int count = 0;
+        for (Map<Long, Cell> worldCells : cells.values()) {
+            for (Cell cell : worldCells.values()) {
+                count += cell.count;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int getReservationCount() {
+        return claims.size();
+    }
+
+    private static long currentTick() {
+        return System.nanoTime() / NANOS_PER_TICK;
+    }
+
+    /**
+     * Targets found in one chunk column
+     */
+    private static final class Cell {
+        private long[] targets = new long[0];
+        private int count;
+        private long scannedTick;
+    }
+
+    /**
+     * One NPC's claim on one target
+     */
+    private static final class Reservation {
+        private final UUID worldId;
+        private final long target;
+        private final int npcId;
+        private long renewedTick;
+
+        private Reservation(UUID worldId, long target, int npcId, long renewedTick) {
+            this.worldId = worldId;
+            this.target = target;
+            this.npcId = npcId;
+            this.renewedTick = renewedTick;
+        }
+    }
+}
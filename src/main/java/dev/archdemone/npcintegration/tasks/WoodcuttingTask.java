@@ -7,6 +7,8 @@ import org.bukkit.entity.Player;
  * Woodcutting task implementation
  */
 public class WoodcuttingTask extends NPCTask {
+    private static final int TICKS_PER_TREE = 30; // Every 1.5 seconds
+    
     public int treesChopped;
     public int logsCollected;
     
@@ -25,18 +27,63 @@ public class WoodcuttingTask extends NPCTask {
         progress++;
         
         // Simulate woodcutting work
-        if (progress % 30 == 0) { // Every 1.5 seconds
-            treesChopped++;
-            logsCollected += (int) (Math.random() * 3) + 2; // 2-4 logs per tree
+        if (progress % TICKS_PER_TREE == 0) {
+            chopTree();
+        }
+        
+        checkRepetition();
+        
+        return shouldContinue();
+    }
+    
+    @Override
+    public boolean supportsOfflineProgress() {
+        return true;
+    }
+    
+    @Override
+    public boolean simulateElapsed(int ticks) {
+        if (!shouldContinue()) {
+            return false;
+        }
+        
+        // Only every 30th tick changes the counters, so step from one tree to the next
+        // and spend the rest between repetitions without advancing progress
+        long remaining = ticks;
+        int nextTree = (progress / TICKS_PER_TREE + 1) * TICKS_PER_TREE;
+        while (nextTree <= config.getDuration() && nextTree - progress <= remaining) {
+            remaining -= nextTree - progress;
+            progress = nextTree;
+            chopTree();
+            if (checkRepetition()) {
+                remaining -= Math.min(remaining, config.getDelayBetweenRepetitions());
+            }
+            if (!shouldContinue()) {
+                return false;
+            }
+            nextTree += TICKS_PER_TREE;
         }
         
-        // Check if we've completed enough work for this repetition
+        progress = (int) Math.min(progress + remaining, config.getDuration());
+        return shouldContinue();
+    }
+    
+    private void chopTree() {
+        treesChopped++;
+        logsCollected += (int) (Math.random() * 3) + 2; // 2-4 logs per tree
+    }
+    
+    /**
+     * Check if we've completed enough work for this repetition
+     * @return true if a repetition was just completed
+     */
+    private boolean checkRepetition() {
         if (logsCollected >= config.getMinAmount()) {
             repetitionsCompleted++;
             logsCollected = 0; // Reset for next repetition
+            return true;
         }
-        
-        return shouldContinue();
+        return false;
     }
     
     @Override
@@ -4,126 +4,273 @@ import dev.archdemone.npcintegration.NPCIntegrationPlugin;
 import dev.archdemone.npcintegration.managers.NPCManager;
 import dev.archdemone.npcintegration.integrations.CitizensIntegration;
 import dev.archdemone.npcintegration.integrations.ModelEngineIntegration;
+import dev.archdemone.npcintegration.scanning.BlockClassifier;
+import dev.archdemone.npcintegration.scanning.ChunkGuard;
+import dev.archdemone.npcintegration.scanning.LongBuffer;
+import dev.archdemone.npcintegration.scanning.ResourceIndex;
+import dev.archdemone.npcintegration.scanning.ResourceType;
+import dev.archdemone.npcintegration.scanning.ScanQuery;
+import dev.archdemone.npcintegration.scanning.ScanResult;
+import dev.archdemone.npcintegration.scanning.TreeFeller;
+import dev.archdemone.npcintegration.utils.BlockPosUtil;
 import dev.archdemone.npcintegration.utils.MessageUtil;
 import net.citizensnpcs.api.npc.NPC;
 import org.bukkit.*;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
 
 /**
  * Runnable for executing woodcutting tasks
  */
-public class WoodcuttingTaskRunnable extends BukkitRunnable {
-    private final NPCManager.NPCDetails details;
+public class WoodcuttingTaskRunnable extends TaskExecutor {
+    private static final int SCAN_POLL_INTERVAL = 5; // Ticks between checks on a background scan
+    private static final int REACH_SQUARED = 9; // Within 3 blocks of the trunk
+    
     private final WoodcuttingTask task;
     private final NPCIntegrationPlugin plugin;
-    private int cycleCount;
+    private final TreeTargetPool treePool;
+    private final ChunkGuard chunkGuard;
+    private final TreeFeller feller;
     private Location lastTreeLocation;
+    private final LongBuffer staleChunks;
+    private final LongBuffer indexHits;
+    private CompletableFuture<ScanResult> pendingScan;
+    private World pendingScanWorld;
     
     public WoodcuttingTaskRunnable(NPCManager.NPCDetails details, WoodcuttingTask task) {
-        this.details = details;
+        super(details);
         this.task = task;
         this.plugin = NPCIntegrationPlugin.getInstance();
-        this.cycleCount = 0;
+        this.treePool = plugin.getEnhancedTaskManager().getTreeTargetPool();
+        this.chunkGuard = plugin.getChunkGuard();
+        this.feller = new TreeFeller(chunkGuard, plugin.getConfig().getInt("performance.tree-felling.max-logs", 256),
+            plugin.getConfig().getInt("performance.tree-felling.max-radius", 8),
+            plugin.getConfig().getInt("performance.tree-felling.max-leaves", 512));
         this.lastTreeLocation = null;
+        this.staleChunks = new LongBuffer();
+        this.indexHits = new LongBuffer();
     }
     
     @Override
-    public void run() {
-        // Check if NPC is still active
-        if (!isNPCActive()) {
-            cancel();
-            return;
-        }
+    protected void onStart() {
+        TaskConfiguration config = task.getConfig();
+        
+        // Play work effects
+        everyEffect(config.getSoundInterval(), this::playWorkSounds);
+        everyEffect(config.getParticleInterval(), this::playWorkParticles);
+        everyEffect(config.getAnimationInterval(), this::playWorkAnimation);
         
-        cycleCount++;
+        // Look for trees and move towards them
+        everyScan(100, this::scanForTree); // Every 5 seconds
+        every(SCAN_POLL_INTERVAL, this::collectScan);
+        every(5, this::fellInReach);
         
-        // Execute task cycle
-        if (!task.executeCycle()) {
-            // Task completed
-            completeTask();
-            cancel();
+        // Send progress updates
+        everyEffect(600, this::sendProgressUpdate); // Every 30 seconds
+    }
+    
+    @Override
+    protected NPCTask getTask() {
+        return task;
+    }
+    
+    private void scanForTree() {
+        NPC npc = details.getCitizensNPC();
+        if (npc == null || !npc.isSpawned()) {
             return;
         }
         
-        // Play work effects
-        if (cycleCount % task.getConfig().getSoundInterval() == 0) {
-            playWorkSounds();
-        }
+        World world = npc.getEntity().getWorld();
         
-        if (cycleCount % task.getConfig().getParticleInterval() == 0) {
-            playWorkParticles();
+        // Keep working on a claimed tree while it's still standing
+        if (lastTreeLocation != null && treePool.renew(getNpcId())) {
+            int treeX = lastTreeLocation.getBlockX();
+            int treeZ = lastTreeLocation.getBlockZ();
+            if (!chunkGuard.canProbe(world, treeX, treeZ) ||
+                BlockClassifier.isLog(world.getType(treeX, lastTreeLocation.getBlockY(), treeZ))) {
+                return; // Still standing, or out of reach until its chunk loads again
+            }
+            treePool.remove(world, packed(lastTreeLocation));
         }
+        lastTreeLocation = null;
         
-        if (cycleCount % task.getConfig().getAnimationInterval() == 0) {
-            playWorkAnimation();
+        Location npcLocation = npc.getEntity().getLocation();
+        requestScan(npcLocation);
+        claimTree(npcLocation);
+    }
+    
+    /**
+     * Refreshes the shared pool for nearby chunks no other woodcutter has looked at recently
+     * Indexed chunks are read from the resource index; the rest are scanned in the background
+     * and reach the pool through {@link #collectScan()} on a later tick. Chunks are published
+     * for their whole height, since woodcutters at any level share them
+     */
+    private void requestScan(Location npcLocation) {
+        if (pendingScan != null) {
+            return;
         }
         
-        // Look for trees and move towards them
-        if (cycleCount % 100 == 0) { // Every 5 seconds
-            Location treeLocation = findNearbyTree();
-            if (treeLocation != null && !treeLocation.equals(lastTreeLocation)) {
-                moveToTree(treeLocation);
-                lastTreeLocation = treeLocation;
+        ResourceIndex resourceIndex = plugin.getResourceIndex();
+        World world = npcLocation.getWorld();
+        int x = npcLocation.getBlockX();
+        int z = npcLocation.getBlockZ();
+        int radius = task.getConfig().getCollectionRadius();
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight() - 1;
+        
+        staleChunks.clear();
+        boolean truncated = false;
+        for (int chunkX = (x - radius) >> 4; chunkX <= (x + radius) >> 4; chunkX++) {
+            for (int chunkZ = (z - radius) >> 4; chunkZ <= (z + radius) >> 4; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    chunkGuard.requestLoad(world, chunkX, chunkZ);
+                    truncated = true;
+                    continue;
+                }
+                if (!treePool.beginScan(world, chunkX, chunkZ)) {
+                    continue;
+                }
+                
+                // Indexed chunks answer right away, the rest are scanned in the background
+                indexHits.clear();
+                if (resourceIndex.collect(world, chunkX, chunkZ, ResourceType.TREE, minY, maxY, indexHits) >= 0) {
+                    treePool.publish(world, chunkX, chunkZ, indexHits.array(), 0, indexHits.size());
+                } else {
+                    staleChunks.add(BlockPosUtil.chunkKey(chunkX, chunkZ));
+                }
             }
         }
         
-        // Send progress updates
-        if (cycleCount % 600 == 0) { // Every 30 seconds
-            sendProgressUpdate();
+        if (truncated) {
+            chunkGuard.scanTruncated();
+        }
+        if (!staleChunks.isEmpty()) {
+            pendingScanWorld = world;
+            pendingScan = plugin.getResourceScanner().scanChunks(world, staleChunks.array(), staleChunks.size(),
+                minY, maxY, ScanQuery.TREES);
         }
     }
     
-    private boolean isNPCActive() {
+    /**
+     * Publishes a finished background scan to the shared pool and heads for a tree if idle
+     */
+    private void collectScan() {
+        if (pendingScan == null || !pendingScan.isDone()) {
+            return;
+        }
+        
+        CompletableFuture<ScanResult> scan = pendingScan;
+        World world = pendingScanWorld;
+        pendingScan = null;
+        pendingScanWorld = null;
+        
+        ScanResult result;
+        try {
+            result = scan.join();
+        } catch (CompletionException | CancellationException e) {
+            plugin.getLogger().log(Level.WARNING, "Tree scan for NPC " + details.getName() + " failed", e);
+            return;
+        }
+        
+        publish(world, result);
+        
         NPC npc = details.getCitizensNPC();
-        return npc != null && npc.isSpawned();
+        if (lastTreeLocation == null && npc != null && npc.isSpawned() && npc.getEntity().getWorld().equals(world)) {
+            claimTree(npc.getEntity().getLocation());
+        }
     }
     
-    private Location findNearbyTree() {
-        NPC npc = details.getCitizensNPC();
-        if (npc == null || !npc.isSpawned()) {
-            return null;
+    private void publish(World world, ScanResult result) {
+        long[] targets = result.getTargets();
+        for (int chunk = 0; chunk < result.getChunkCount(); chunk++) {
+            treePool.publish(world, result.getChunkX(chunk), result.getChunkZ(chunk), targets,
+                result.getChunkStart(chunk), result.getChunkEnd(chunk));
         }
-        
-        Location npcLocation = npc.getEntity().getLocation();
+    }
+    
+    /**
+     * Claims the nearest free tree from the shared pool and moves to it
+     * Claimed targets can be stale, so any that were cut down since their scan are dropped
+     */
+    private void claimTree(Location npcLocation) {
+        World world = npcLocation.getWorld();
+        int x = npcLocation.getBlockX();
+        int y = npcLocation.getBlockY();
+        int z = npcLocation.getBlockZ();
         int radius = task.getConfig().getCollectionRadius();
         
-        // Search for trees in radius
-        for (int x = -radius; x <= radius; x++) {
-            for (int z = -radius; z <= radius; z++) {
-                for (int y = -5; y <= 10; y++) {
-                    Location checkLocation = npcLocation.clone().add(x, y, z);
-                    Block block = checkLocation.getBlock();
-                    
-                    if (isLogBlock(block)) {
-                        // Check if there's a tree structure
-                        if (hasTreeStructure(checkLocation)) {
-                            return checkLocation;
-                        }
-                    }
-                }
+        long target;
+        while ((target = treePool.claimNearest(world, x, y, z, radius, getNpcId())) != TreeTargetPool.NO_TARGET) {
+            int targetX = BlockPosUtil.unpackX(target);
+            int targetY = BlockPosUtil.unpackY(target);
+            int targetZ = BlockPosUtil.unpackZ(target);
+            if (chunkGuard.canProbe(world, targetX, targetZ) && BlockClassifier.isLog(world.getType(targetX, targetY, targetZ))) {
+                lastTreeLocation = new Location(world, targetX, targetY, targetZ);
+                moveToTree(lastTreeLocation);
+                return;
             }
+            treePool.remove(world, target);
         }
-        
-        return null;
     }
     
-    private boolean isLogBlock(Block block) {
-        String materialName = block.getType().name().toLowerCase();
-        return materialName.contains("log") || materialName.contains("wood");
-    }
-    
-    private boolean hasTreeStructure(Location baseLocation) {
-        // Simple check - look for leaves above the log
-        for (int y = 1; y <= 10; y++) {
-            Block block = baseLocation.clone().add(0, y, 0).getBlock();
-            if (block.getType().name().toLowerCase().contains("leaves")) {
-                return true;
+    /**
+     * Fells the claimed tree once the NPC stands next to it
+     * The connected logs and natural leaves go through the shard's block queue, logs first.
+     * Only blocks on the outside of the tree apply physics, since nothing inside it is left
+     * to react. Other trunk columns of a 2x2 tree leave the pool with it. A tree whose logs
+     * run past the felling cap or radius is joined to something built from logs, so it is
+     * dropped from the pool and left standing
+     */
+    private void fellInReach() {
+        NPC npc = details.getCitizensNPC();
+        if (lastTreeLocation == null || ticker == null || npc == null || !npc.isSpawned()) {
+            return;
+        }
+        
+        Location npcLocation = npc.getEntity().getLocation();
+        World world = lastTreeLocation.getWorld();
+        if (!npcLocation.getWorld().equals(world) || npcLocation.distanceSquared(lastTreeLocation) > REACH_SQUARED) {
+            return;
+        }
+        
+        int x = lastTreeLocation.getBlockX();
+        int y = lastTreeLocation.getBlockY();
+        int z = lastTreeLocation.getBlockZ();
+        if (!chunkGuard.canProbe(world, x, z) || feller.fell(world, x, y, z) == 0) {
+            return;
+        }
+        if (feller.isTruncated()) {
+            treePool.remove(world, packed(lastTreeLocation));
+            lastTreeLocation = null;
+            return;
+        }
+        
+        BlockMutationQueue mutations = ticker.getMutations();
+        LongBuffer logs = feller.getLogs();
+        for (int i = 0; i < logs.size(); i++) {
+            long log = logs.get(i);
+            mutations.breakBlock(world, BlockPosUtil.unpackX(log), BlockPosUtil.unpackY(log), BlockPosUtil.unpackZ(log),
+                feller.isOnSurface(log));
+            if (BlockPosUtil.unpackY(log) == y) {
+                treePool.remove(world, log);
             }
         }
-        return false;
+        LongBuffer leaves = feller.getLeaves();
+        for (int i = 0; i < leaves.size(); i++) {
+            long leaf = leaves.get(i);
+            mutations.breakBlock(world, BlockPosUtil.unpackX(leaf), BlockPosUtil.unpackY(leaf), BlockPosUtil.unpackZ(leaf),
+                feller.isOnSurface(leaf));
+        }
+        lastTreeLocation = null;
+    }
+    
+    private static long packed(Location location) {
+        return BlockPosUtil.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
     
     private void moveToTree(Location treeLocation) {
@@ -175,14 +322,11 @@ public class WoodcuttingTaskRunnable extends BukkitRunnable {
                 modelEngineIntegration.playAnimation(finalTargetEntity, modelName, 
                     task.getConfig().getAnimationName());
                 
-                // Stop animation after 2 seconds
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        modelEngineIntegration.stopAnimation(finalTargetEntity, modelName, 
-                            task.getConfig().getAnimationName());
-                    }
-                }.runTaskLater(plugin, 40L);
+                // Stop animation after 2 seconds, on the wheel of the region that owns the NPC
+                if (ticker != null) {
+                    ticker.getWheel().schedule(40L, () -> modelEngineIntegration.stopAnimation(
+                        finalTargetEntity, modelName, task.getConfig().getAnimationName()));
+                }
             }
         }
     }
@@ -202,7 +346,21 @@ public class WoodcuttingTaskRunnable extends BukkitRunnable {
         }
     }
     
-    private void completeTask() {
+    @Override
+    protected void onCancel() {
+        treePool.release(getNpcId());
+        
+        // Other woodcutters still want the results; the pool is safe to fill from the worker
+        if (pendingScan != null) {
+            World world = pendingScanWorld;
+            pendingScan.thenAccept(result -> publish(world, result));
+            pendingScan = null;
+            pendingScanWorld = null;
+        }
+    }
+    
+    @Override
+    protected void completeTask() {
         NPC npc = details.getCitizensNPC();
         if (npc == null || !npc.isSpawned()) return;
         
@@ -0,0 +1,46 @@
+package dev.archdemone.npcintegration.utils;
+
+/**
+ * Utility class for packing block and chunk coordinates into longs
+ * Block positions use the vanilla layout: 26 bits x, 26 bits z, 12 bits y
+ */
+public class BlockPosUtil {
+    
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+    private static final int X_SHIFT = Y_BITS + XZ_BITS;
+    private static final int Z_SHIFT = Y_BITS;
+    
+    public static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+    }
+    
+    public static int unpackX(long packed) {
+        return (int) (packed >> X_SHIFT);
+    }
+    
+    public static int unpackY(long packed) {
+        return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+    
+    public static int unpackZ(long packed) {
+        return (int) (packed << (64 - X_SHIFT) >> (64 - XZ_BITS));
+    }
+    
+    /**
+     * Packs chunk coordinates, x in the high half and z in the low half
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    public static int chunkKeyX(long key) {
+        return (int) (key >> 32);
+    }
+    
+    public static int chunkKeyZ(long key) {
+        return (int) key;
+    }
+}